@@ -0,0 +1,51 @@
+#!/bin/bash
+
+# Login burst load test
+# Compares throughput of platform-thread mode vs virtual-thread mode.
+#
+# 1. Start the backend in platform-thread mode:
+#      mvn spring-boot:run -Dspring-boot.run.profiles=local
+#    and run:  ./load_test_login.sh
+# 2. Build with Java 21 and start in virtual-thread mode:
+#      mvn -P virtual-threads spring-boot:run -Dspring-boot.run.profiles=local,virtual
+#    and run:  ./load_test_login.sh
+# 3. Compare the "Throughput" lines.
+
+BASE_URL=${BASE_URL:-http://localhost:8080}
+EMAIL=${LOGIN_EMAIL:?Set LOGIN_EMAIL to an existing test account}
+PASSWORD=${LOGIN_PASSWORD:?Set LOGIN_PASSWORD for the test account}
+REQUESTS=${REQUESTS:-200}
+CONCURRENCY=${CONCURRENCY:-50}
+
+echo "🔥 Login burst load test"
+echo "========================================"
+echo "Target:      $BASE_URL/api/v1/auth/login"
+echo "Requests:    $REQUESTS"
+echo "Concurrency: $CONCURRENCY"
+echo ""
+
+RESULTS=$(mktemp)
+trap 'rm -f "$RESULTS"' EXIT
+
+START=$(date +%s.%N)
+seq "$REQUESTS" | xargs -P "$CONCURRENCY" -I{} \
+  curl -s -o /dev/null -w "%{http_code} %{time_total}\n" \
+    -X POST "$BASE_URL/api/v1/auth/login" \
+    -H "Content-Type: application/json" \
+    -d "{\"email\": \"$EMAIL\", \"password\": \"$PASSWORD\"}" >> "$RESULTS"
+END=$(date +%s.%N)
+
+ELAPSED=$(echo "$END - $START" | bc)
+OK=$(grep -c "^200 " "$RESULTS")
+REJECTED=$(grep -c "^503 " "$RESULTS")
+
+echo "Elapsed:     ${ELAPSED}s"
+echo "200 OK:      $OK"
+echo "503 shed:    $REJECTED"
+echo "Throughput:  $(echo "scale=2; $REQUESTS / $ELAPSED" | bc) req/s"
+sort -k2 -n "$RESULTS" | awk '{ t[NR] = $2 } END {
+  printf "Latency p50: %.3fs\n", t[int(NR * 0.50)]
+  printf "Latency p95: %.3fs\n", t[int(NR * 0.95)]
+  printf "Latency max: %.3fs\n", t[NR]
+}'
+echo "========================================"
@@ -0,0 +1,148 @@
+#!/bin/bash
+
+# Native image smoke test
+# Starts target/school-app-backend against a local Postgres and calls one endpoint of every
+# controller. The endpoints are called without real data, so 4xx (and this API's 500
+# "success: false" validation errors) are fine. What fails the test is a native-only error
+# in the binary's log: missing reflection/resource metadata or a class the image lacks.
+#
+# 1. Build:  mvn -Pnative package -DskipTests   (GraalVM 22.3+ as JAVA_HOME)
+# 2. Run:    ./native_smoke_test.sh
+#
+# Uses DATABASE_URL if set, otherwise starts a throwaway postgres:16 container on port 5433
+# and loads SCHEMA_FILES into it.
+
+BINARY=${BINARY:-target/school-app-backend}
+PORT=${PORT:-8081}
+BASE_URL="http://localhost:$PORT"
+SCHEMA_FILES=${SCHEMA_FILES:-"supabase_schema.sql supabase_schema_update.sql supabase_schedule_exceptions.sql supabase_payment_events_add_schedule_id.sql supabase_course_enrollment_deactivated_at.sql supabase_student_data_versions.sql supabase_schedule_exceptions_new_occurrence_index.sql supabase_institution_closures.sql supabase_class_occurrences.sql supabase_payment_events_student_due_date_index.sql"}
+STARTUP_TARGET_MS=${STARTUP_TARGET_MS:-200}
+CONTAINER=school-app-native-smoke
+RANDOM_ID=$(cat /proc/sys/kernel/random/uuid)
+
+echo "🧪 Native image smoke test"
+echo "========================================"
+
+if [ ! -x "$BINARY" ]; then
+    echo "❌ $BINARY not found. Build it with: mvn -Pnative package -DskipTests"
+    exit 1
+fi
+
+LOG=$(mktemp)
+cleanup() {
+    [ -n "$APP_PID" ] && kill "$APP_PID" 2>/dev/null
+    [ -n "$STARTED_CONTAINER" ] && docker rm -f "$CONTAINER" > /dev/null 2>&1
+    rm -f "$LOG"
+}
+trap cleanup EXIT
+
+# 1. Database
+if [ -z "$DATABASE_URL" ]; then
+    echo "🐘 Starting postgres:16 on port 5433..."
+    docker run -d --rm --name "$CONTAINER" -p 5433:5432 -e POSTGRES_PASSWORD=postgres postgres:16 > /dev/null || exit 1
+    STARTED_CONTAINER=1
+    until docker exec "$CONTAINER" pg_isready -U postgres > /dev/null 2>&1; do sleep 0.5; done
+    
+    # Supabase-only objects the schema files reference
+    docker exec -i "$CONTAINER" psql -q -U postgres > /dev/null 2>&1 <<'SQL'
+CREATE SCHEMA IF NOT EXISTS auth;
+CREATE TABLE IF NOT EXISTS auth.users (id UUID PRIMARY KEY);
+CREATE OR REPLACE FUNCTION auth.uid() RETURNS UUID LANGUAGE sql AS 'SELECT NULL::uuid';
+CREATE ROLE authenticated;
+CREATE ROLE anon;
+SQL
+    for file in $SCHEMA_FILES; do
+        docker exec -i "$CONTAINER" psql -q -U postgres < "$file" > /dev/null 2>&1
+        echo "   loaded $file"
+    done
+    export DATABASE_URL=jdbc:postgresql://localhost:5433/postgres
+    export DATABASE_USERNAME=postgres
+    export DATABASE_PASSWORD=postgres
+fi
+
+# 2. Start the binary
+echo "🚀 Starting $BINARY on port $PORT..."
+PORT=$PORT "$BINARY" > "$LOG" 2>&1 &
+APP_PID=$!
+
+for i in $(seq 1 100); do
+    grep -q "Started SchoolAppBackendApplication" "$LOG" && break
+    if ! kill -0 "$APP_PID" 2>/dev/null; then
+        echo "❌ Binary exited during startup:"
+        tail -40 "$LOG"
+        exit 1
+    fi
+    sleep 0.1
+done
+
+STARTED_LINE=$(grep "Started SchoolAppBackendApplication" "$LOG")
+if [ -z "$STARTED_LINE" ]; then
+    echo "❌ Not started after 10s:"
+    tail -40 "$LOG"
+    exit 1
+fi
+STARTUP_SECONDS=$(echo "$STARTED_LINE" | sed -E 's/.* in ([0-9.]+) seconds.*/\1/')
+STARTUP_MS=$(awk -v s="$STARTUP_SECONDS" 'BEGIN { printf "%d", s * 1000 }')
+echo "   $STARTED_LINE"
+
+# 3. One call per controller
+FAILED=0
+check() {
+    local label=$1
+    shift
+    local status=$(curl -s -o /dev/null -w "%{http_code}" "$@")
+    if [ "$status" = "000" ]; then
+        echo "   ❌ $label: no response"
+        FAILED=1
+    else
+        echo "   ✅ $label: HTTP $status"
+    fi
+}
+
+echo "🌐 Calling every controller..."
+check "GET  /"                              "$BASE_URL/"
+check "GET  /health"                        "$BASE_URL/health"
+check "GET  /actuator/health"               "$BASE_URL/actuator/health"
+check "GET  /api/v1/auth/health"            "$BASE_URL/api/v1/auth/health"
+check "POST /api/v1/auth/login"             -X POST "$BASE_URL/api/v1/auth/login" \
+    -H "Content-Type: application/json" -d '{"email": "smoke@example.com", "password": "x"}'
+check "GET  /api/v1/users/{id}"             "$BASE_URL/api/v1/users/$RANDOM_ID"
+check "GET  /api/v1/students"               "$BASE_URL/api/v1/students?associated_parent_id=$RANDOM_ID"
+check "POST /api/v1/parent/children"        -X POST "$BASE_URL/api/v1/parent/children" \
+    -H "Content-Type: application/json" -d "{\"parentId\": \"$RANDOM_ID\", \"name\": \"Smoke\", \"birthdate\": \"2015-01-01\"}"
+check "GET  /api/v1/parent/{id}/dashboard"  "$BASE_URL/api/v1/parent/$RANDOM_ID/dashboard"
+check "GET  /api/v1/courses/health"         "$BASE_URL/api/v1/courses/health"
+check "GET  /api/v1/billing-rules/health"   "$BASE_URL/api/v1/billing-rules/health"
+check "GET  /api/v1/class/schedules"        "$BASE_URL/api/v1/class/schedules?studentId=$RANDOM_ID"
+check "GET  /api/v1/class/schedules (ndjson)" "$BASE_URL/api/v1/class/schedules?studentId=$RANDOM_ID&stream=true"
+check "GET  /api/v1/class/schedules (paged)" "$BASE_URL/api/v1/class/schedules?studentId=$RANDOM_ID&pageSize=20"
+check "GET  /api/v1/class/next"             "$BASE_URL/api/v1/class/next?studentId=$RANDOM_ID"
+check "POST /api/v1/schedules/exceptions"   -X POST "$BASE_URL/api/v1/schedules/exceptions" \
+    -H "Content-Type: application/json" -d "{\"schedule_id\": \"$RANDOM_ID\", \"original_date\": \"2025-01-01\", \"is_cancelled\": true}"
+check "POST /api/v1/schedules/exceptions/batch" -X POST "$BASE_URL/api/v1/schedules/exceptions/batch" \
+    -H "Content-Type: application/json" -d "{\"exceptions\": [{\"schedule_id\": \"$RANDOM_ID\", \"is_cancelled\": true}]}"
+check "GET  /api/v1/institutions/{id}/closures" "$BASE_URL/api/v1/institutions/$RANDOM_ID/closures"
+check "GET  /api/v1/payments"               "$BASE_URL/api/v1/payments?studentId=$RANDOM_ID"
+check "GET  /api/v1/summary"                "$BASE_URL/api/v1/summary?studentId=$RANDOM_ID"
+
+# 4. Native-only failures surface as these in the log
+NATIVE_ERRORS=$(grep -E "MissingReflectionRegistrationError|MissingResourceRegistrationError|UnsupportedFeatureError|ClassNotFoundException|NoSuchMethodException|InvalidDefinitionException|No serializer found" "$LOG" | sort -u)
+if [ -n "$NATIVE_ERRORS" ]; then
+    echo "❌ Native image errors in the log:"
+    echo "$NATIVE_ERRORS"
+    FAILED=1
+fi
+
+RSS_KB=$(awk '/VmRSS/ { print $2 }' "/proc/$APP_PID/status" 2>/dev/null)
+
+echo "========================================"
+echo "Startup:  ${STARTUP_MS} ms (target ${STARTUP_TARGET_MS} ms)"
+echo "RSS:      $(( ${RSS_KB:-0} / 1024 )) MB after the smoke calls"
+if [ "$STARTUP_MS" -gt "$STARTUP_TARGET_MS" ]; then
+    echo "⚠️  Startup above target"
+fi
+if [ "$FAILED" -ne 0 ]; then
+    echo "❌ Smoke test failed"
+    exit 1
+fi
+echo "✅ Smoke test passed"
@@ -1,6 +1,11 @@
 package com.educollab;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -18,6 +23,9 @@ import java.util.Arrays;
 @CrossOrigin(origins = "*")
 public class SchoolAppBackendApplication {
     
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+    
     public static void main(String[] args) {
         System.out.println("Starting EduCollab Backend Application...");
         SpringApplication.run(SchoolAppBackendApplication.class, args);
@@ -47,9 +55,17 @@ public class SchoolAppBackendApplication {
         return "EduCollab Backend is running!";
     }
     
+    /**
+     * Readiness as plain text for the Railway health check: 503 during the warm-up
+     * (WarmupService) and while the connection pool is saturated (PoolHealthIndicator).
+     * Separate probes: /actuator/health/liveness and /actuator/health/readiness.
+     */
     @GetMapping("/health")
-    public String health() {
+    public ResponseEntity<String> health() {
         System.out.println("Health endpoint accessed");
-        return "OK";
+        if (applicationAvailability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("NOT_READY");
+        }
+        return ResponseEntity.ok("OK");
     }
 }
@@ -0,0 +1,15 @@
+package com.educollab.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Async and @Scheduled using Spring Boot's auto-configured executors,
+ * which run on virtual threads when spring.threads.virtual.enabled is set.
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfig {
+}
@@ -0,0 +1,107 @@
+package com.educollab.config;
+
+import com.educollab.filter.BulkheadFilter;
+import com.netflix.concurrency.limits.Limit;
+import com.netflix.concurrency.limits.Limiter;
+import com.netflix.concurrency.limits.limit.Gradient2Limit;
+import com.netflix.concurrency.limits.limit.VegasLimit;
+import com.netflix.concurrency.limits.limiter.SimpleLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adaptive per-endpoint-class bulkheads (see BulkheadFilter).
+ *
+ * Each class starts at its initial limit and is adjusted between 1 and its max limit from
+ * observed latency, with Netflix's gradient (default) or Vegas algorithm. The max limits also
+ * bound total concurrency when request threads are virtual.
+ *
+ * Metrics per class: app.bulkhead.limit, app.bulkhead.inflight, app.bulkhead.rejected.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+public class BulkheadConfig {
+    
+    private static final List<String> ENDPOINT_CLASSES = List.of(
+        BulkheadFilter.AUTH, BulkheadFilter.READ, BulkheadFilter.WRITE, BulkheadFilter.HEAVY
+    );
+    
+    @Value("${app.bulkhead.algorithm:gradient}")
+    private String algorithm;
+    
+    @Bean
+    public FilterRegistrationBean<BulkheadFilter> bulkheadFilter(Environment environment, MeterRegistry meterRegistry) {
+        Map<String, Limiter<Void>> limiters = new LinkedHashMap<>();
+        for (String endpointClass : ENDPOINT_CLASSES) {
+            int initialLimit = environment.getProperty("app.bulkhead." + endpointClass + ".initial-limit", Integer.class, defaultInitialLimit(endpointClass));
+            int maxLimit = environment.getProperty("app.bulkhead." + endpointClass + ".max-limit", Integer.class, defaultMaxLimit(endpointClass));
+            
+            SimpleLimiter<Void> limiter = SimpleLimiter.newBuilder()
+                .named(endpointClass)
+                .limit(buildLimit(initialLimit, maxLimit))
+                .build();
+            limiters.put(endpointClass, limiter);
+            
+            Gauge.builder("app.bulkhead.limit", limiter, SimpleLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("class", endpointClass)
+                .register(meterRegistry);
+            Gauge.builder("app.bulkhead.inflight", limiter, SimpleLimiter::getInflight)
+                .description("Requests currently holding a bulkhead slot")
+                .tag("class", endpointClass)
+                .register(meterRegistry);
+            
+            System.out.println("🚧 Bulkhead '" + endpointClass + "': " + algorithm + " limit, initial=" + initialLimit + ", max=" + maxLimit);
+        }
+        
+        FilterRegistrationBean<BulkheadFilter> registration =
+            new FilterRegistrationBean<>(new BulkheadFilter(limiters, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+    
+    private Limit buildLimit(int initialLimit, int maxLimit) {
+        if ("vegas".equalsIgnoreCase(algorithm)) {
+            return VegasLimit.newBuilder()
+                .initialLimit(initialLimit)
+                .maxConcurrency(maxLimit)
+                .build();
+        }
+        return Gradient2Limit.newBuilder()
+            .initialLimit(initialLimit)
+            .minLimit(1)
+            .maxConcurrency(maxLimit)
+            .build();
+    }
+    
+    // Login waits on Supabase, not the pool; heavy aggregations hold a connection the longest
+    private int defaultInitialLimit(String endpointClass) {
+        switch (endpointClass) {
+            case BulkheadFilter.AUTH: return 10;
+            case BulkheadFilter.READ: return 8;
+            case BulkheadFilter.WRITE: return 4;
+            default: return 2;
+        }
+    }
+    
+    private int defaultMaxLimit(String endpointClass) {
+        switch (endpointClass) {
+            case BulkheadFilter.AUTH: return 50;
+            case BulkheadFilter.READ: return 32;
+            case BulkheadFilter.WRITE: return 16;
+            default: return 6;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.educollab.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.core.NativeDetector;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+    
+    /**
+     * Blackbird replaces reflective getter/constructor calls with generated lambdas for the
+     * DTO records in com.educollab.dto. Boot registers every Module bean on its ObjectMapper.
+     * A native image cannot define classes at runtime, so there plain reflection is used
+     * (registered in NativeHintsConfig).
+     */
+    @Bean
+    public Module blackbirdModule() {
+        if (NativeDetector.inNativeImage()) {
+            return new SimpleModule("blackbird-disabled");
+        }
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,26 @@
+package com.educollab.config;
+
+import com.educollab.filter.JwtAuthenticationFilter;
+import com.educollab.service.JwtVerificationService;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class JwtConfig {
+    
+    /**
+     * Registered unconditionally so AOT images keep the filter; it checks supabase.jwt.enabled
+     * per request (see JwtVerificationService).
+     */
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilter(JwtVerificationService jwtVerificationService) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration =
+            new FilterRegistrationBean<>(new JwtAuthenticationFilter(jwtVerificationService));
+        registration.addUrlPatterns("/api/*");
+        // Run after the concurrency limiter so rejected requests never reach token parsing
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
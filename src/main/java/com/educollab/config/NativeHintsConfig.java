@@ -0,0 +1,54 @@
+package com.educollab.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Reachability metadata for the native image (mvn -Pnative).
+ *
+ * Spring AOT already covers beans, @RequestBody types and JPA entity mappings, and the
+ * GraalVM metadata repository covers the Postgres driver, Hibernate and Reactor Netty.
+ * What is left is ours: DTOs and entities serialised by Jackson inside Map envelopes
+ * (invisible to AOT), the Ehcache XML configuration, and the JCache provider that
+ * Hibernate loads by class name.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.AppRuntimeHints.class)
+public class NativeHintsConfig {
+    
+    static class AppRuntimeHints implements RuntimeHintsRegistrar {
+        
+        private static final String[] JSON_PACKAGES = { "com.educollab.dto", "com.educollab.model" };
+        
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Runs at build time, so scanning keeps new DTOs and entities covered automatically
+            ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+            scanner.addIncludeFilter((metadataReader, metadataReaderFactory) -> true);
+            for (String basePackage : JSON_PACKAGES) {
+                for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+                    hints.reflection().registerType(
+                        TypeReference.of(candidate.getBeanClassName()),
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_DECLARED_METHODS,
+                        MemberCategory.DECLARED_FIELDS
+                    );
+                }
+            }
+            
+            hints.resources().registerPattern("ehcache.xml");
+            hints.resources().registerPattern("ehcache-core.xsd");
+            hints.resources().registerPattern("ehcache-107-ext.xsd");
+            hints.reflection().registerType(
+                TypeReference.of("org.ehcache.jsr107.EhcacheCachingProvider"),
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS
+            );
+        }
+    }
+}
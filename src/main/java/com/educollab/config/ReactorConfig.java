@@ -0,0 +1,26 @@
+package com.educollab.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class ReactorConfig {
+    
+    @Value("${app.database-scheduler.threads:4}")
+    private int databaseSchedulerThreads;
+    
+    @Value("${app.database-scheduler.queue-capacity:1000}")
+    private int databaseSchedulerQueueCapacity;
+    
+    /**
+     * Bounded scheduler for blocking JPA work that follows a non-blocking remote call.
+     * A handful of threads is enough: the Hikari pool only has two connections.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler databaseScheduler() {
+        return Schedulers.newBoundedElastic(databaseSchedulerThreads, databaseSchedulerQueueCapacity, "db-offload");
+    }
+}
@@ -1,9 +1,19 @@
 package com.educollab.config;
 
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class SupabaseConfig {
@@ -14,9 +24,78 @@ public class SupabaseConfig {
     @Value("${supabase.service-key}")
     private String serviceKey;
     
+    @Value("${supabase.http.max-connections:50}")
+    private int maxConnections;
+    
+    @Value("${supabase.http.pending-acquire-max-count:500}")
+    private int pendingAcquireMaxCount;
+    
+    @Value("${supabase.http.pending-acquire-timeout-ms:2000}")
+    private long pendingAcquireTimeoutMs;
+    
+    @Value("${supabase.http.max-idle-time-ms:30000}")
+    private long maxIdleTimeMs;
+    
+    @Value("${supabase.http.max-life-time-ms:300000}")
+    private long maxLifeTimeMs;
+    
+    @Value("${supabase.http.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+    
+    @Value("${supabase.http.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+    
+    @Value("${supabase.http.write-timeout-ms:5000}")
+    private long writeTimeoutMs;
+    
+    @Value("${supabase.http.response-timeout-ms:5000}")
+    private long responseTimeoutMs;
+    
+    /**
+     * Dedicated connection pool for Supabase calls.
+     * Bounded so a login storm queues (and fails fast after pendingAcquireTimeout)
+     * instead of opening an unbounded number of sockets. Pool gauges are published
+     * under reactor.netty.connection.provider.* (including pending connections).
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider supabaseConnectionProvider() {
+        System.out.println("🔧 Supabase HTTP pool: maxConnections=" + maxConnections
+            + ", pendingAcquireTimeout=" + pendingAcquireTimeoutMs + "ms"
+            + ", maxIdleTime=" + maxIdleTimeMs + "ms");
+        return ConnectionProvider.builder("supabase")
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(pendingAcquireMaxCount)
+            .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+            .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+            .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+            .evictInBackground(Duration.ofSeconds(30))
+            .metrics(true)
+            .build();
+    }
+    
+    /**
+     * WebClient for Supabase built from Boot's WebClient.Builder so http.client.requests
+     * latency/error metrics are recorded for every call.
+     */
     @Bean
-    public WebClient supabaseWebClient() {
-        return WebClient.builder()
+    public WebClient supabaseWebClient(WebClient.Builder webClientBuilder, ConnectionProvider supabaseConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(supabaseConnectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .keepAlive(true)
+            .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+            .doOnConnected(connection -> connection
+                .addHandlerLast(new ReadTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS))
+                .addHandlerLast(new WriteTimeoutHandler(writeTimeoutMs, TimeUnit.MILLISECONDS)))
+            .metrics(true, uri -> uri.replaceAll("\\?.*$", ""));
+        
+        // HTTP/2 is negotiated via ALPN, so only offer it over TLS
+        if (supabaseUrl != null && supabaseUrl.startsWith("https")) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        
+        return webClientBuilder
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
             .baseUrl(supabaseUrl)
             .defaultHeader("apikey", serviceKey)
             .defaultHeader("Authorization", "Bearer " + serviceKey)
@@ -31,5 +110,8 @@ public class SupabaseConfig {
     public String getServiceKey() {
         return serviceKey;
     }
+    
+    public Duration getResponseTimeout() {
+        return Duration.ofMillis(responseTimeoutMs);
+    }
 }
-
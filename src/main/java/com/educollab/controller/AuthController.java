@@ -1,8 +1,11 @@
 package com.educollab.controller;
 
+import com.educollab.dto.LoginRequest;
+import com.educollab.dto.RegisterRequest;
 import com.educollab.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import java.util.Map;
 
 @RestController
@@ -20,13 +23,13 @@ public class AuthController {
     }
     
     @PostMapping("/register")
-    public Map<String, Object> register(@RequestBody Map<String, Object> request) {
+    public Mono<Map<String, Object>> register(@RequestBody RegisterRequest request) {
         System.out.println("Register endpoint accessed with data: " + request);
         return authService.register(request);
     }
     
     @PostMapping("/login")
-    public Map<String, Object> login(@RequestBody Map<String, Object> request) {
+    public Mono<Map<String, Object>> login(@RequestBody LoginRequest request) {
         System.out.println("Login endpoint accessed with data: " + request);
         return authService.login(request);
     }
@@ -1,5 +1,6 @@
 package com.educollab.controller;
 
+import com.educollab.dto.CreateBillingRuleRequest;
 import com.educollab.service.BillingRuleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -22,7 +23,7 @@ public class BillingRuleController {
     }
     
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createBillingRule(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> createBillingRule(@RequestBody CreateBillingRuleRequest request) {
         System.out.println("Create billing rule endpoint accessed with data: " + request);
         Map<String, Object> result = billingRuleService.createBillingRule(request);
         
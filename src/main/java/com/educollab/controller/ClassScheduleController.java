@@ -1,51 +1,124 @@
 package com.educollab.controller;
 
+import com.educollab.dto.ClassScheduleResponse;
 import com.educollab.service.ClassScheduleService;
+import com.educollab.service.SingleFlight;
+import com.educollab.service.DataVersionService;
+import com.educollab.service.StudentAccessGuard;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
-import java.util.Map;
+import java.time.LocalDateTime;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/class")
 @CrossOrigin(origins = "*")
 public class ClassScheduleController {
     
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    
     @Autowired
     private ClassScheduleService classScheduleService;
     
+    @Autowired
+    private StudentAccessGuard studentAccessGuard;
+    
+    @Autowired
+    private DataVersionService dataVersionService;
+    
+    @Autowired
+    private SingleFlight singleFlight;
+    
     @GetMapping("/schedules")
-    public ResponseEntity<Map<String, Object>> getSchedules(
+    public ResponseEntity<?> getSchedules(
             @RequestParam String studentId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam(required = false) Integer maximumCount) {
+            @RequestParam(required = false) Integer maximumCount,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(required = false, defaultValue = "false") boolean stream,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
         
         System.out.println("Get schedules endpoint accessed");
-        System.out.println("Query params - studentId: " + studentId + ", startDate: " + startDate + ", endDate: " + endDate + ", maximumCount: " + maximumCount);
+        System.out.println("Query params - studentId: " + studentId + ", startDate: " + startDate + ", endDate: " + endDate + ", maximumCount: " + maximumCount + ", after: " + after + ", pageSize: " + pageSize);
         
         if (studentId == null || studentId.isEmpty()) {
             throw new RuntimeException("studentId is required");
         }
+        studentAccessGuard.checkAccess(studentId);
         
         // Set default dates if not provided
         if (startDate == null) {
             startDate = LocalDate.now();
         }
+        
+        // Cursor paging (infinite scroll): pageSize events after the "after" cursor of the previous page
+        if (after != null || pageSize != null) {
+            String etag = dataVersionService.buildEtag(studentId, "schedule-pages", startDate, endDate, after, pageSize);
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+            return ResponseEntity.ok(classScheduleService.getClassSchedulePage(studentId, startDate, endDate, after, pageSize));
+        }
+        
         if (endDate == null) {
             endDate = LocalDate.now().plusMonths(3); // Default 3 months ahead
         }
         
-        Map<String, Object> result = classScheduleService.getClassSchedules(
-            studentId, 
-            startDate, 
-            endDate, 
-            maximumCount
+        boolean ndjson = accept != null && accept.contains(NDJSON_VALUE);
+        
+        // Unchanged since the client's last poll: 304 before any expansion work
+        String etag = dataVersionService.buildEtag(studentId, "schedules", startDate, endDate, maximumCount, stream, ndjson);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        
+        // Wide ranges: stream events as they are generated instead of building the whole response
+        if (stream || ndjson) {
+            return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.parseMediaType(NDJSON_VALUE) : MediaType.APPLICATION_JSON)
+                .body(classScheduleService.streamClassSchedules(studentId, startDate, endDate, maximumCount, ndjson));
+        }
+        
+        // Identical requests arriving together (app start fires several) share one computation
+        LocalDate from = startDate;
+        LocalDate to = endDate;
+        ClassScheduleResponse result = singleFlight.execute(
+            "schedules",
+            studentId.toLowerCase() + "|" + from + "|" + to + "|" + maximumCount,
+            () -> classScheduleService.getClassSchedules(studentId, from, to, maximumCount)
         );
         
         return ResponseEntity.ok(result);
     }
+    
+    /**
+     * Next occurrence of each of the student's courses (or of one course) starting at or after
+     * "after" (default now), for the "next class" widget.
+     */
+    @GetMapping("/next")
+    public ResponseEntity<ClassScheduleResponse> getNextClasses(
+            @RequestParam String studentId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+            @RequestParam(required = false) UUID courseId) {
+        
+        System.out.println("Get next classes endpoint accessed - studentId: " + studentId + ", after: " + after + ", courseId: " + courseId);
+        
+        if (studentId == null || studentId.isEmpty()) {
+            throw new RuntimeException("studentId is required");
+        }
+        studentAccessGuard.checkAccess(studentId);
+        
+        LocalDateTime from = after != null ? after : LocalDateTime.now();
+        return ResponseEntity.ok(classScheduleService.getNextClasses(studentId, from, courseId));
+    }
 }
@@ -1,6 +1,8 @@
 package com.educollab.controller;
 
+import com.educollab.dto.CreateCourseRequest;
 import com.educollab.service.CourseService;
+import com.educollab.service.StudentAccessGuard;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +17,9 @@ public class CourseController {
     @Autowired
     private CourseService courseService;
     
+    @Autowired
+    private StudentAccessGuard studentAccessGuard;
+    
     @GetMapping("/health")
     public String health() {
         System.out.println("Course health endpoint accessed");
@@ -22,29 +27,65 @@ public class CourseController {
     }
     
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createCourse(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> createCourse(@RequestBody CreateCourseRequest request) {
         System.out.println("Create course endpoint accessed with data: " + request);
         Map<String, Object> result = courseService.createCourse(request);
         
         if (result.get("success").equals(true)) {
             return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        } else if (isConflict(result)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
         } else {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(result);
         }
     }
     
     @PostMapping("/institution")
-    public ResponseEntity<Map<String, Object>> createInstitutionCourse(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> createInstitutionCourse(@RequestBody CreateCourseRequest request) {
         System.out.println("Create institution course endpoint accessed with data: " + request);
         Map<String, Object> result = courseService.createInstitutionCourse(request);
         
         if (result.get("success").equals(true)) {
             return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        } else if (isConflict(result)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+        } else {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(result);
+        }
+    }
+    
+    /**
+     * An institution's teacher/location bookings overlapping a weekly slot, e.g.
+     * /conflicts?institutionId=...&teacherName=Ms%20Lee&dayOfWeek=Monday&startTime=16:00&endTime=17:00
+     */
+    @GetMapping("/conflicts")
+    public ResponseEntity<Map<String, Object>> getConflicts(
+            @RequestParam(required = false) String institutionId,
+            @RequestParam(required = false) String teacherName,
+            @RequestParam(required = false) String location,
+            @RequestParam String dayOfWeek,
+            @RequestParam String startTime,
+            @RequestParam String endTime,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String excludeCourseId) {
+        System.out.println("Course conflicts endpoint accessed");
+        studentAccessGuard.checkInstitutionAccess(institutionId);
+        Map<String, Object> result = courseService.findConflicts(
+            institutionId, teacherName, location, dayOfWeek, startTime, endTime, startDate, endDate, excludeCourseId
+        );
+        
+        if (result.get("success").equals(true)) {
+            return ResponseEntity.ok(result);
         } else {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(result);
         }
     }
     
+    private boolean isConflict(Map<String, Object> result) {
+        return result.get("data") instanceof Map<?, ?> data && data.containsKey("conflicts");
+    }
+    
     @DeleteMapping("/{courseId}/enrollments")
     public ResponseEntity<Map<String, Object>> deleteStudentEnrollment(
             @PathVariable String courseId,
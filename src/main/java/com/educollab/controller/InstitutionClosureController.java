@@ -0,0 +1,44 @@
+package com.educollab.controller;
+
+import com.educollab.dto.InstitutionClosureRequest;
+import com.educollab.service.InstitutionClosureService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/institutions/{institutionId}/closures")
+@CrossOrigin(origins = "*")
+public class InstitutionClosureController {
+    
+    @Autowired
+    private InstitutionClosureService institutionClosureService;
+    
+    /**
+     * Declare holidays and term breaks in bulk, e.g.
+     * {"closures": [{"startDate": "2025-12-22", "endDate": "2026-01-02", "reason": "Winter break"}]}
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> declareClosures(
+            @PathVariable String institutionId,
+            @RequestBody InstitutionClosureRequest request) {
+        System.out.println("Declare closures endpoint accessed for institution: " + institutionId);
+        Map<String, Object> result = institutionClosureService.declareClosures(institutionId, request);
+        
+        if (result.get("success").equals(true)) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        } else {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(result);
+        }
+    }
+    
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getClosures(@PathVariable String institutionId) {
+        System.out.println("Get closures endpoint accessed for institution: " + institutionId);
+        Map<String, Object> result = institutionClosureService.getClosures(institutionId);
+        return ResponseEntity.ok(result);
+    }
+}
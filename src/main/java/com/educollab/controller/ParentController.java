@@ -1,8 +1,17 @@
 package com.educollab.controller;
 
+import com.educollab.dto.AddChildRequest;
+import com.educollab.dto.ParentDashboardResponse;
 import com.educollab.service.AuthService;
+import com.educollab.service.ParentDashboardService;
+import com.educollab.service.SingleFlight;
+import com.educollab.service.StudentAccessGuard;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
 import java.util.Map;
 
 @RestController
@@ -13,10 +22,43 @@ public class ParentController {
     @Autowired
     private AuthService authService;
     
+    @Autowired
+    private ParentDashboardService parentDashboardService;
+    
+    @Autowired
+    private StudentAccessGuard studentAccessGuard;
+    
+    @Autowired
+    private SingleFlight singleFlight;
+    
     @PostMapping("/children")
-    public Map<String, Object> addChild(@RequestBody Map<String, Object> request) {
+    public Map<String, Object> addChild(@RequestBody AddChildRequest request) {
         System.out.println("Add child endpoint accessed with data: " + request);
         return authService.addChild(request);
     }
+    
+    @GetMapping("/{parentId}/dashboard")
+    public ResponseEntity<ParentDashboardResponse> getDashboard(
+            @PathVariable String parentId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer maximumCount) {
+        
+        System.out.println("Get parent dashboard endpoint accessed");
+        System.out.println("Parent ID: " + parentId + ", startDate: " + startDate + ", endDate: " + endDate + ", maximumCount: " + maximumCount);
+        
+        studentAccessGuard.checkParentAccess(parentId);
+        
+        // Same defaults as the schedules and payments endpoints
+        LocalDate from = startDate != null ? startDate : LocalDate.now();
+        LocalDate to = endDate != null ? endDate : LocalDate.now().plusMonths(3);
+        
+        ParentDashboardResponse result = singleFlight.execute(
+            "dashboard",
+            parentId + "|" + from + "|" + to + "|" + maximumCount,
+            () -> parentDashboardService.getDashboard(parentId, from, to, maximumCount)
+        );
+        
+        return ResponseEntity.ok(result);
+    }
 }
-
@@ -1,10 +1,19 @@
 package com.educollab.controller;
 
+import com.educollab.dto.PaymentEventInfo;
+import com.educollab.dto.PaymentEventsResponse;
+import com.educollab.dto.PaymentStatusRequest;
+import com.educollab.service.DataVersionService;
 import com.educollab.service.PaymentQueryService;
+import com.educollab.service.SingleFlight;
+import com.educollab.service.StudentAccessGuard;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.Map;
@@ -14,15 +23,29 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class PaymentController {
     
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    
     @Autowired
     private PaymentQueryService paymentQueryService;
     
+    @Autowired
+    private StudentAccessGuard studentAccessGuard;
+    
+    @Autowired
+    private DataVersionService dataVersionService;
+    
+    @Autowired
+    private SingleFlight singleFlight;
+    
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getPaymentEvents(
+    public ResponseEntity<?> getPaymentEvents(
             @RequestParam String studentId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam(required = false) Integer maximumCount) {
+            @RequestParam(required = false) Integer maximumCount,
+            @RequestParam(required = false, defaultValue = "false") boolean stream,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
         
         System.out.println("Get payment events endpoint accessed");
         System.out.println("Query params - studentId: " + studentId + ", startDate: " + startDate + 
@@ -31,6 +54,7 @@ public class PaymentController {
         if (studentId == null || studentId.isEmpty()) {
             throw new RuntimeException("studentId is required");
         }
+        studentAccessGuard.checkAccess(studentId);
         
         // Set default dates if not provided
         if (startDate == null) {
@@ -40,32 +64,49 @@ public class PaymentController {
             endDate = LocalDate.now().plusMonths(3); // Default 3 months ahead
         }
         
-        Map<String, Object> result = paymentQueryService.getPaymentEvents(
-            studentId, 
-            startDate, 
-            endDate, 
-            maximumCount
+        boolean ndjson = accept != null && accept.contains(NDJSON_VALUE);
+        
+        // Unchanged since the client's last poll: 304 before any expansion work
+        String etag = dataVersionService.buildEtag(studentId, "payments", startDate, endDate, maximumCount, stream, ndjson);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        
+        // Wide ranges: stream events as they are generated instead of building the whole response
+        if (stream || ndjson) {
+            return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.parseMediaType(NDJSON_VALUE) : MediaType.APPLICATION_JSON)
+                .body(paymentQueryService.streamPaymentEvents(studentId, startDate, endDate, maximumCount, ndjson));
+        }
+        
+        // Identical requests arriving together (app start fires several) share one computation
+        LocalDate from = startDate;
+        LocalDate to = endDate;
+        PaymentEventsResponse result = singleFlight.execute(
+            "payments",
+            studentId.toLowerCase() + "|" + from + "|" + to + "|" + maximumCount,
+            () -> paymentQueryService.getPaymentEvents(studentId, from, to, maximumCount)
         );
         
         return ResponseEntity.ok(result);
     }
     
     @PutMapping("/{paymentEventId}/status")
-    public ResponseEntity<Map<String, Object>> updatePaymentEventStatus(
+    public ResponseEntity<PaymentEventInfo> updatePaymentEventStatus(
             @PathVariable String paymentEventId,
-            @RequestBody Map<String, Object> request) {
+            @RequestBody PaymentStatusRequest request) {
         
         System.out.println("Update payment event status endpoint accessed");
         System.out.println("Payment Event ID: " + paymentEventId);
         System.out.println("Request body: " + request);
         
-        String status = request.get("status") != null ? request.get("status").toString() : null;
+        String status = request.status();
         
         if (status == null || status.isEmpty()) {
             throw new RuntimeException("status is required in request body");
         }
         
-        Map<String, Object> result = paymentQueryService.updatePaymentEventStatus(paymentEventId, status);
+        PaymentEventInfo result = paymentQueryService.updatePaymentEventStatus(paymentEventId, status);
         
         return ResponseEntity.ok(result);
     }
@@ -81,6 +122,7 @@ public class PaymentController {
         if (studentId == null || studentId.isEmpty()) {
             throw new RuntimeException("studentId is required as query parameter");
         }
+        studentAccessGuard.checkAccess(studentId);
         
         Map<String, Object> result = paymentQueryService.deletePaymentSchedule(studentId, paymentScheduleId);
         
@@ -102,6 +144,7 @@ public class PaymentController {
         if (studentId == null || studentId.isEmpty()) {
             throw new RuntimeException("studentId is required as query parameter");
         }
+        studentAccessGuard.checkAccess(studentId);
         
         Map<String, Object> result = paymentQueryService.deletePaymentEvent(studentId, paymentEventId);
         
@@ -1,5 +1,7 @@
 package com.educollab.controller;
 
+import com.educollab.dto.ScheduleExceptionBatchRequest;
+import com.educollab.dto.ScheduleExceptionRequest;
 import com.educollab.service.ScheduleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -16,9 +18,38 @@ public class ScheduleController {
     private ScheduleService scheduleService;
     
     @PostMapping("/exceptions")
-    public ResponseEntity<Map<String, Object>> createScheduleException(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> createScheduleException(@RequestBody ScheduleExceptionRequest request) {
         System.out.println("Create schedule exception endpoint accessed with data: " + request);
         Map<String, Object> result = scheduleService.createScheduleException(request);
         return ResponseEntity.ok(result);
     }
+    
+    /**
+     * Many exceptions in one request and one transaction; the response has a result per item.
+     */
+    @PostMapping("/exceptions/batch")
+    public ResponseEntity<Map<String, Object>> createScheduleExceptions(@RequestBody ScheduleExceptionBatchRequest request) {
+        int size = request.exceptions() != null ? request.exceptions().size() : 0;
+        System.out.println("Batch schedule exception endpoint accessed with " + size + " item(s)");
+        Map<String, Object> result = scheduleService.createScheduleExceptions(request);
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * Ranked slots where a session of the schedule could be moved, free for the teacher, the
+     * location and all enrolled students, e.g.
+     * /{scheduleId}/free-slots?from=2025-03-03&to=2025-03-16&durationMinutes=60&limit=10
+     */
+    @GetMapping("/{scheduleId}/free-slots")
+    public ResponseEntity<Map<String, Object>> getFreeSlots(
+            @PathVariable String scheduleId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String originalDate,
+            @RequestParam(required = false) Long durationMinutes,
+            @RequestParam(required = false) Integer limit) {
+        System.out.println("Free slots endpoint accessed for schedule: " + scheduleId);
+        Map<String, Object> result = scheduleService.findFreeSlots(scheduleId, from, to, originalDate, durationMinutes, limit);
+        return ResponseEntity.ok(result);
+    }
 }
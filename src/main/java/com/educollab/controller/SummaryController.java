@@ -1,6 +1,10 @@
 package com.educollab.controller;
 
+import com.educollab.dto.StudentSummaryResponse;
+import com.educollab.service.DataVersionService;
+import com.educollab.service.SingleFlight;
 import com.educollab.service.SummaryService;
+import com.educollab.service.StudentAccessGuard;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -8,8 +12,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.Map;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/v1/summary")
@@ -19,9 +22,26 @@ public class SummaryController {
     @Autowired
     private SummaryService summaryService;
     
+    @Autowired
+    private StudentAccessGuard studentAccessGuard;
+    
+    @Autowired
+    private DataVersionService dataVersionService;
+    
+    @Autowired
+    private SingleFlight singleFlight;
+    
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getStudentSummary(@RequestParam String studentId) {
-        Map<String, Object> summary = summaryService.getStudentSummary(studentId);
+    public ResponseEntity<StudentSummaryResponse> getStudentSummary(@RequestParam String studentId, WebRequest webRequest) {
+        studentAccessGuard.checkAccess(studentId);
+        if (webRequest.checkNotModified(dataVersionService.buildEtag(studentId, "summary"))) {
+            return null;
+        }
+        StudentSummaryResponse summary = singleFlight.execute(
+            "summary",
+            studentId.toLowerCase(),
+            () -> summaryService.getStudentSummary(studentId)
+        );
         return ResponseEntity.ok(summary);
     }
 }
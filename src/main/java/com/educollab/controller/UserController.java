@@ -1,5 +1,6 @@
 package com.educollab.controller;
 
+import com.educollab.dto.AvatarUpdateRequest;
 import com.educollab.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -18,10 +19,9 @@ public class UserController {
     @PatchMapping("/{userId}/avatar")
     public ResponseEntity<Map<String, Object>> updateAvatar(
             @PathVariable String userId,
-            @RequestBody Map<String, Object> request) {
+            @RequestBody AvatarUpdateRequest request) {
         System.out.println("Update avatar endpoint accessed for user " + userId);
-        String avatarUrl = request.get("avatar_url") != null ? request.get("avatar_url").toString() : null;
-        Map<String, Object> result = userService.updateAvatar(userId, avatarUrl);
+        Map<String, Object> result = userService.updateAvatar(userId, request.avatarUrl());
         return ResponseEntity.ok(result);
     }
 
@@ -0,0 +1,12 @@
+package com.educollab.dto;
+
+/**
+ * Body of POST /api/v1/parent/children
+ */
+public record AddChildRequest(
+    String studentId,
+    String parentId,
+    String name,
+    String birthdate,
+    Boolean isAssociated
+) {}
@@ -0,0 +1,8 @@
+package com.educollab.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Body of PATCH /api/v1/users/{userId}/avatar
+ */
+public record AvatarUpdateRequest(@JsonProperty("avatar_url") String avatarUrl) {}
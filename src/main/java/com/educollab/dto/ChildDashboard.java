@@ -0,0 +1,15 @@
+package com.educollab.dto;
+
+import java.util.UUID;
+
+/**
+ * One child on the parent dashboard: the same payloads as the schedules, payments and
+ * summary endpoints for that child.
+ */
+public record ChildDashboard(
+    UUID studentId,
+    String name,
+    ClassScheduleResponse schedules,
+    PaymentEventsResponse payments,
+    StudentSummaryResponse summary
+) {}
@@ -0,0 +1,19 @@
+package com.educollab.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * One class occurrence. Times are UTC and serialised with toString() (e.g. "2025-01-06T10:00Z")
+ * to keep the existing wire format.
+ */
+public record ClassEvent(
+    UUID scheduleId,
+    UUID courseId,
+    @JsonSerialize(using = ToStringSerializer.class) OffsetDateTime startTime,
+    @JsonSerialize(using = ToStringSerializer.class) OffsetDateTime endTime,
+    int durationMinutes
+) {}
@@ -0,0 +1,13 @@
+package com.educollab.dto;
+
+import java.util.List;
+
+/**
+ * One page of GET /api/v1/class/schedules?pageSize=...; pass nextCursor back as "after" for the
+ * following page (null once there are no more events in the range).
+ */
+public record ClassSchedulePage(
+    List<CourseInfo> courses,
+    List<ClassEvent> events,
+    String nextCursor
+) {}
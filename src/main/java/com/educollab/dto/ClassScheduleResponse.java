@@ -0,0 +1,11 @@
+package com.educollab.dto;
+
+import java.util.List;
+
+/**
+ * Response of GET /api/v1/class/schedules (and /api/v1/class/next, one event per course)
+ */
+public record ClassScheduleResponse(
+    List<CourseInfo> courses,
+    List<ClassEvent> events
+) {}
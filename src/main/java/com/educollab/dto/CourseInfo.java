@@ -0,0 +1,19 @@
+package com.educollab.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Course entry of the class schedule response; inactiveDate is only present for inactive enrollments.
+ */
+public record CourseInfo(
+    UUID courseId,
+    String name,
+    String teacherName,
+    String location,
+    String description,
+    String status,
+    @JsonInclude(JsonInclude.Include.NON_NULL) LocalDate inactiveDate
+) {}
@@ -0,0 +1,12 @@
+package com.educollab.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record CourseSummary(
+    UUID courseId,
+    String courseName,
+    BigDecimal totalPaidAmount,
+    BigDecimal hoursTaken,
+    BigDecimal pendingHours
+) {}
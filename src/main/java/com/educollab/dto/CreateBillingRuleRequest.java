@@ -0,0 +1,15 @@
+package com.educollab.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Body of POST /api/v1/billing-rules
+ */
+public record CreateBillingRuleRequest(
+    String studentId,
+    BigDecimal amount,
+    String startDate,
+    String billingRrule,
+    String item,
+    String note
+) {}
@@ -0,0 +1,29 @@
+package com.educollab.dto;
+
+import java.util.List;
+
+/**
+ * Body of POST /api/v1/courses (studentId) and POST /api/v1/courses/institution (institutionId).
+ * allowConflicts skips the conflict check: the institution's teacher/location bookings for
+ * institution courses, the student's own timetable for student courses.
+ */
+public record CreateCourseRequest(
+    String courseName,
+    String teacherName,
+    String location,
+    Integer totalSessions,
+    String courseStartDate,
+    String studentId,
+    String institutionId,
+    String description,
+    Integer maxStudents,
+    List<ScheduleEntry> schedule,
+    Boolean allowConflicts
+) {
+    
+    public record ScheduleEntry(
+        String dayOfWeek,
+        String startTime,
+        String endTime
+    ) {}
+}
@@ -0,0 +1,16 @@
+package com.educollab.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A candidate slot for moving a session, free for the teacher, the location and every
+ * enrolled student. Lower score is better (closer to the original date and start time).
+ */
+public record FreeSlot(
+    LocalDate date,
+    String dayOfWeek,
+    LocalTime startTime,
+    LocalTime endTime,
+    long score
+) {}
@@ -0,0 +1,18 @@
+package com.educollab.dto;
+
+import java.util.List;
+
+/**
+ * Body of POST /api/v1/institutions/{institutionId}/closures. Each range is inclusive;
+ * endDate defaults to startDate for single-day holidays.
+ */
+public record InstitutionClosureRequest(
+    List<ClosureRange> closures
+) {
+    
+    public record ClosureRange(
+        String startDate,
+        String endDate,
+        String reason
+    ) {}
+}
@@ -0,0 +1,11 @@
+package com.educollab.dto;
+
+/**
+ * Body of POST /api/v1/auth/login (email or phone, plus optional expected role)
+ */
+public record LoginRequest(
+    String email,
+    String phone,
+    String password,
+    String role
+) {}
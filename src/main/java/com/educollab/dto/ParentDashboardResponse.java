@@ -0,0 +1,14 @@
+package com.educollab.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Response of GET /api/v1/parent/{parentId}/dashboard
+ */
+public record ParentDashboardResponse(
+    String parentId,
+    LocalDate startDate,
+    LocalDate endDate,
+    List<ChildDashboard> children
+) {}
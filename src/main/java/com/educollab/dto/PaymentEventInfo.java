@@ -0,0 +1,18 @@
+package com.educollab.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Payment event as returned to clients; status is PAID or UNPAID.
+ */
+public record PaymentEventInfo(
+    UUID paymentEventId,
+    String item,
+    BigDecimal amount,
+    String status,
+    LocalDate dueDate,
+    LocalDate paidDate,
+    String note
+) {}
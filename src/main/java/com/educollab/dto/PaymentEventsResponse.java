@@ -0,0 +1,13 @@
+package com.educollab.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Response of GET /api/v1/payments
+ */
+public record PaymentEventsResponse(
+    @JsonProperty("payment_schedules") List<PaymentScheduleInfo> paymentSchedules,
+    @JsonProperty("payment_events") List<PaymentEventInfo> paymentEvents
+) {}
@@ -0,0 +1,16 @@
+package com.educollab.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record PaymentScheduleInfo(
+    UUID id,
+    @JsonProperty("billing_rrule") String billingRule,
+    LocalDate startDate,
+    BigDecimal amount,
+    String item,
+    String note
+) {}
@@ -0,0 +1,6 @@
+package com.educollab.dto;
+
+/**
+ * Body of PUT /api/v1/payments/{paymentEventId}/status
+ */
+public record PaymentStatusRequest(String status) {}
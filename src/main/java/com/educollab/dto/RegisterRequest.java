@@ -0,0 +1,12 @@
+package com.educollab.dto;
+
+/**
+ * Body of POST /api/v1/auth/register
+ */
+public record RegisterRequest(
+    String email,
+    String password,
+    String name,
+    String role,
+    String phone
+) {}
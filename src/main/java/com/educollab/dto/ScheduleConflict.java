@@ -0,0 +1,22 @@
+package com.educollab.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+/**
+ * An existing weekly booking that overlaps a requested slot for the same teacher or location.
+ * resource is "teacher" or "location"; endDate is null for open-ended schedules.
+ */
+public record ScheduleConflict(
+    String resource,
+    String name,
+    UUID courseId,
+    String courseName,
+    UUID scheduleId,
+    String dayOfWeek,
+    LocalTime startTime,
+    LocalTime endTime,
+    LocalDate startDate,
+    LocalDate endDate
+) {}
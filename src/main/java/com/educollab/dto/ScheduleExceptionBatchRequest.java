@@ -0,0 +1,11 @@
+package com.educollab.dto;
+
+import java.util.List;
+
+/**
+ * Body of POST /api/v1/schedules/exceptions/batch: the same items as the single endpoint,
+ * e.g. every session of a teacher's sick week across their courses.
+ */
+public record ScheduleExceptionBatchRequest(
+    List<ScheduleExceptionRequest> exceptions
+) {}
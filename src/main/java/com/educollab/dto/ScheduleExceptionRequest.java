@@ -0,0 +1,16 @@
+package com.educollab.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Body of POST /api/v1/schedules/exceptions (snake_case on the wire)
+ */
+public record ScheduleExceptionRequest(
+    @JsonProperty("schedule_id") String scheduleId,
+    @JsonProperty("original_date") String originalDate,
+    @JsonProperty("original_start_time") String originalStartTime,
+    @JsonProperty("is_cancelled") Boolean isCancelled,
+    @JsonProperty("new_date") String newDate,
+    @JsonProperty("new_start_time") String newStartTime,
+    @JsonProperty("new_duration_minutes") Long newDurationMinutes
+) {}
@@ -0,0 +1,13 @@
+package com.educollab.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Response of GET /api/v1/summary
+ */
+public record StudentSummaryResponse(
+    String studentId,
+    LocalDate summaryDate,
+    List<CourseSummary> courses
+) {}
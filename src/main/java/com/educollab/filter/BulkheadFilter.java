@@ -0,0 +1,164 @@
+package com.educollab.filter;
+
+import com.netflix.concurrency.limits.Limiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Per-endpoint-class bulkheads in front of the (2-connection) Hikari pool.
+ *
+ * Login, cheap reads, writes and heavy aggregations each get their own adaptive concurrency
+ * limit, so a burst of summaries cannot queue every other endpoint behind it for the full pool
+ * connection timeout. Requests over their class limit are rejected immediately with 503 and
+ * Retry-After. Latency of admitted requests feeds the limit algorithm; streaming responses
+ * release their slot only when the async response completes.
+ */
+public class BulkheadFilter extends OncePerRequestFilter {
+    
+    public static final String AUTH = "auth";
+    public static final String READ = "read";
+    public static final String WRITE = "write";
+    public static final String HEAVY = "heavy";
+    
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    
+    private final Map<String, Limiter<Void>> limiters;
+    private final Map<String, Counter> rejectedCounters;
+    
+    public BulkheadFilter(Map<String, Limiter<Void>> limiters, MeterRegistry meterRegistry) {
+        this.limiters = limiters;
+        this.rejectedCounters = new HashMap<>();
+        for (String endpointClass : limiters.keySet()) {
+            rejectedCounters.put(endpointClass, Counter.builder("app.bulkhead.rejected")
+                .description("Requests rejected because their bulkhead was full")
+                .tag("class", endpointClass)
+                .register(meterRegistry));
+        }
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String endpointClass = classify(request);
+        Limiter<Void> limiter = limiters.get(endpointClass);
+        if (limiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        Optional<Limiter.Listener> acquired = limiter.acquire(null);
+        if (acquired.isEmpty()) {
+            rejectedCounters.get(endpointClass).increment();
+            System.err.println("⚠️ Bulkhead '" + endpointClass + "' full, rejecting " + request.getMethod() + " " + request.getRequestURI());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            response.setContentType("application/json");
+            response.getWriter().write("{\"success\":false,\"message\":\"Server busy, please retry\"}");
+            return;
+        }
+        
+        Limiter.Listener listener = acquired.get();
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            listener.onIgnore();
+            throw e;
+        }
+        
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new AsyncReleaseListener(listener, response));
+        } else {
+            release(listener, response);
+        }
+    }
+    
+    /**
+     * Errors are not latency samples (validation failures surface as 500s in this API).
+     */
+    private void release(Limiter.Listener listener, HttpServletResponse response) {
+        if (response.getStatus() >= 500) {
+            listener.onIgnore();
+        } else {
+            listener.onSuccess();
+        }
+    }
+    
+    /**
+     * Releases the slot of a streaming response. The container always fires onComplete,
+     * including after a timeout or error, so the listener is released exactly once there.
+     */
+    private class AsyncReleaseListener implements AsyncListener {
+        
+        private final Limiter.Listener listener;
+        private final HttpServletResponse response;
+        private volatile boolean timedOut;
+        private volatile boolean failed;
+        
+        AsyncReleaseListener(Limiter.Listener listener, HttpServletResponse response) {
+            this.listener = listener;
+            this.response = response;
+        }
+        
+        @Override
+        public void onComplete(AsyncEvent event) {
+            if (timedOut) {
+                listener.onDropped();
+            } else if (failed) {
+                listener.onIgnore();
+            } else {
+                release(listener, response);
+            }
+        }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            timedOut = true;
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+            failed = true;
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+    
+    static String classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.startsWith("/api/v1/auth/")) {
+            return AUTH;
+        }
+        if (!"GET".equalsIgnoreCase(request.getMethod())) {
+            return WRITE;
+        }
+        if (path.startsWith("/api/v1/summary") || path.endsWith("/dashboard")) {
+            return HEAVY;
+        }
+        String accept = request.getHeader("Accept");
+        if ("true".equalsIgnoreCase(request.getParameter("stream")) || (accept != null && accept.contains(NDJSON_VALUE))) {
+            return HEAVY;
+        }
+        return READ;
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return "OPTIONS".equalsIgnoreCase(request.getMethod())
+            || !request.getRequestURI().startsWith("/api/");
+    }
+}
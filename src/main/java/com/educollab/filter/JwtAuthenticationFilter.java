@@ -0,0 +1,68 @@
+package com.educollab.filter;
+
+import com.educollab.service.JwtVerificationService;
+import com.nimbusds.jwt.JWTClaimsSet;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Rejects /api requests without a valid Supabase bearer token and exposes the
+ * caller's identity to controllers as request attributes.
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    
+    public static final String USER_ID_ATTRIBUTE = "authUserId";
+    public static final String ROLE_ATTRIBUTE = "authRole";
+    
+    private final JwtVerificationService jwtVerificationService;
+    
+    public JwtAuthenticationFilter(JwtVerificationService jwtVerificationService) {
+        this.jwtVerificationService = jwtVerificationService;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            reject(response, "Missing bearer token");
+            return;
+        }
+        
+        JWTClaimsSet claims;
+        try {
+            claims = jwtVerificationService.verify(header.substring(7).trim());
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Rejected token for " + request.getMethod() + " " + request.getRequestURI() + ": " + e.getMessage());
+            reject(response, e.getMessage());
+            return;
+        }
+        
+        request.setAttribute(USER_ID_ATTRIBUTE, claims.getSubject());
+        request.setAttribute(ROLE_ATTRIBUTE, claims.getClaim("role"));
+        filterChain.doFilter(request, response);
+    }
+    
+    private void reject(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setHeader("WWW-Authenticate", "Bearer");
+        response.setContentType("application/json");
+        response.getWriter().write("{\"success\":false,\"message\":\"Unauthorized: "
+            + message.replace("\\", "\\\\").replace("\"", "'") + "\"}");
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !jwtVerificationService.isEnabled()
+            || "OPTIONS".equalsIgnoreCase(request.getMethod())
+            || !path.startsWith("/api/")
+            || path.startsWith("/api/v1/auth/");
+    }
+}
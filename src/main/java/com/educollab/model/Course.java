@@ -1,11 +1,15 @@
 package com.educollab.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "courses")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "courses")
 public class Course {
     
     @Id
@@ -34,6 +38,9 @@ public class Course {
     @Column(name = "location")
     private String location;
     
+    @Column(name = "institution_id")
+    private UUID institutionId;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -114,6 +121,14 @@ public class Course {
         this.location = location;
     }
     
+    public UUID getInstitutionId() {
+        return institutionId;
+    }
+    
+    public void setInstitutionId(UUID institutionId) {
+        this.institutionId = institutionId;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
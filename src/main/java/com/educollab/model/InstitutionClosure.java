@@ -0,0 +1,97 @@
+package com.educollab.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Days an institution is closed (public holiday, term break), start and end inclusive.
+ * Occurrences of the institution's courses on these days are cancelled during expansion.
+ */
+@Entity
+@Table(name = "institution_closures")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "institution-closures")
+public class InstitutionClosure {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id")
+    private UUID id;
+    
+    @Column(name = "institution_id", nullable = false)
+    private UUID institutionId;
+    
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+    
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+    
+    @Column(name = "reason")
+    private String reason;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    public InstitutionClosure() {}
+    
+    public InstitutionClosure(UUID institutionId, LocalDate startDate, LocalDate endDate, String reason) {
+        this.institutionId = institutionId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.reason = reason;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public UUID getId() {
+        return id;
+    }
+    
+    public void setId(UUID id) {
+        this.id = id;
+    }
+    
+    public UUID getInstitutionId() {
+        return institutionId;
+    }
+    
+    public void setInstitutionId(UUID institutionId) {
+        this.institutionId = institutionId;
+    }
+    
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+    
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+    
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+    
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+    
+    public String getReason() {
+        return reason;
+    }
+    
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,12 +1,22 @@
 package com.educollab.repository;
 
 import com.educollab.model.Course;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.UUID;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface CourseRepository extends JpaRepository<Course, UUID> {
     
+    // Cache the id list so repeated lookups resolve entities from the second-level cache
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Course> findAllById(Iterable<UUID> ids);
+    
+    List<Course> findByInstitutionId(UUID institutionId);
 }
-
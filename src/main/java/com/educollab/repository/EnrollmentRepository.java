@@ -3,6 +3,7 @@ package com.educollab.repository;
 import com.educollab.model.Enrollment;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -11,6 +12,7 @@ import java.util.UUID;
 public interface EnrollmentRepository extends JpaRepository<Enrollment, UUID> {
     List<Enrollment> findByCourseId(UUID courseId);
     List<Enrollment> findByStudentId(UUID studentId);
+    List<Enrollment> findByStudentIdIn(Collection<UUID> studentIds);
     boolean existsByCourseIdAndStudentId(UUID courseId, UUID studentId);
     Optional<Enrollment> findByStudentIdAndCourseId(UUID studentId, UUID courseId);
 }
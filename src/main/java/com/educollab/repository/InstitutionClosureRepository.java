@@ -0,0 +1,23 @@
+package com.educollab.repository;
+
+import com.educollab.model.InstitutionClosure;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
+@Repository
+public interface InstitutionClosureRepository extends JpaRepository<InstitutionClosure, UUID> {
+    
+    // Read by every schedule expansion of an institution's students
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<InstitutionClosure> findByInstitutionIdIn(Collection<UUID> institutionIds);
+    
+    List<InstitutionClosure> findByInstitutionIdOrderByStartDateAsc(UUID institutionId);
+}
@@ -1,12 +1,20 @@
 package com.educollab.repository;
 
 import com.educollab.model.PaymentEvent;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface PaymentEventRepository extends JpaRepository<PaymentEvent, UUID> {
     List<PaymentEvent> findByStudentIdAndDueDateBetweenOrderByDueDateAsc(
@@ -15,6 +23,36 @@ public interface PaymentEventRepository extends JpaRepository<PaymentEvent, UUID
         LocalDate endDate
     );
     
+    List<PaymentEvent> findByStudentIdInAndDueDateBetweenOrderByDueDateAsc(
+        Collection<UUID> studentIds,
+        LocalDate startDate,
+        LocalDate endDate
+    );
+    
+    long countByStudentIdAndDueDateBetween(UUID studentId, LocalDate startDate, LocalDate endDate);
+    
+    @Query("SELECT MAX(p.dueDate) FROM PaymentEvent p " +
+           "WHERE p.studentId = :studentId AND p.dueDate BETWEEN :startDate AND :endDate")
+    LocalDate findLatestDueDateInRange(@Param("studentId") UUID studentId,
+                                       @Param("startDate") LocalDate startDate,
+                                       @Param("endDate") LocalDate endDate);
+    
+    /**
+     * One keyset page of a student's events ordered by (dueDate, id): the rows after
+     * (afterDueDate, afterId) up to endDate. Start with (startDate, nil UUID) to include
+     * startDate; the page size comes from the Pageable.
+     */
+    @QueryHints(@QueryHint(name = HINT_READ_ONLY, value = "true"))
+    @Query("SELECT p FROM PaymentEvent p " +
+           "WHERE p.studentId = :studentId AND p.dueDate <= :endDate " +
+           "AND (p.dueDate > :afterDueDate OR (p.dueDate = :afterDueDate AND p.id > :afterId)) " +
+           "ORDER BY p.dueDate ASC, p.id ASC")
+    List<PaymentEvent> findPageAfter(@Param("studentId") UUID studentId,
+                                     @Param("afterDueDate") LocalDate afterDueDate,
+                                     @Param("afterId") UUID afterId,
+                                     @Param("endDate") LocalDate endDate,
+                                     Pageable page);
+    
     boolean existsByStudentIdAndPaymentScheduleIdAndDueDate(
         UUID studentId,
         UUID paymentScheduleId,
@@ -26,5 +64,7 @@ public interface PaymentEventRepository extends JpaRepository<PaymentEvent, UUID
     List<PaymentEvent> findByPaymentScheduleIdAndDueDateAfter(UUID paymentScheduleId, LocalDate date);
     
     List<PaymentEvent> findByStudentIdAndStatusAndDueDateBefore(UUID studentId, String status, LocalDate dueDate);
+    
+    List<PaymentEvent> findByStudentIdInAndStatusAndDueDateBefore(Collection<UUID> studentIds, String status, LocalDate dueDate);
 }
 
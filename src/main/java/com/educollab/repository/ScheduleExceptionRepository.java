@@ -2,20 +2,43 @@ package com.educollab.repository;
 
 import com.educollab.model.ScheduleException;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface ScheduleExceptionRepository extends JpaRepository<ScheduleException, UUID> {
-    Optional<ScheduleException> findByScheduleIdAndOriginalDateAndOriginalStartTime(UUID scheduleId,
-                                                                                     LocalDate originalDate,
-                                                                                     LocalTime originalStartTime);
+    boolean existsByScheduleIdAndOriginalDateAndOriginalStartTime(UUID scheduleId,
+                                                                  LocalDate originalDate,
+                                                                  LocalTime originalStartTime);
     List<ScheduleException> findByScheduleIdIn(Collection<UUID> scheduleIds);
-    List<ScheduleException> findByScheduleId(UUID scheduleId);
+    
+    /**
+     * Exceptions of these schedules whose original or moved date is one of the dates; resolves
+     * a whole batch of occurrences in one query.
+     */
+    @Query("SELECT e FROM ScheduleException e " +
+           "WHERE e.scheduleId IN :scheduleIds AND (e.originalDate IN :dates OR e.newDate IN :dates) " +
+           "ORDER BY e.createdAt ASC")
+    List<ScheduleException> findByScheduleIdInAndOccurrenceDateIn(@Param("scheduleIds") Collection<UUID> scheduleIds,
+                                                                  @Param("dates") Collection<LocalDate> dates);
+    
+    /**
+     * Exceptions that already moved an occurrence to this date and start time (the start time
+     * stays the original one when only the date changed). Backed by
+     * idx_schedule_exceptions_new_occurrence.
+     */
+    @Query("SELECT e FROM ScheduleException e " +
+           "WHERE e.scheduleId = :scheduleId AND e.newDate = :newDate " +
+           "AND COALESCE(e.newStartTime, e.originalStartTime) = :startTime " +
+           "ORDER BY e.createdAt ASC")
+    List<ScheduleException> findByNewOccurrence(@Param("scheduleId") UUID scheduleId,
+                                                @Param("newDate") LocalDate newDate,
+                                                @Param("startTime") LocalTime startTime);
 }
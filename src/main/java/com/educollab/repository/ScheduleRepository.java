@@ -1,16 +1,25 @@
 package com.educollab.repository;
 
 import com.educollab.model.Schedule;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface ScheduleRepository extends JpaRepository<Schedule, UUID> {
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Schedule> findByCourseId(UUID courseId);
     
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Schedule> findByCourseIdIn(Collection<UUID> courseIds);
+    
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Schedule> findAllById(Iterable<UUID> ids);
 }
-
@@ -1,13 +1,21 @@
 package com.educollab.repository;
 
 import com.educollab.model.Student;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.UUID;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface StudentRepository extends JpaRepository<Student, UUID> {
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Student> findByAssociatedParentId(String parentId);
+    
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Student> findAllById(Iterable<UUID> ids);
 }
-
@@ -1,6 +1,8 @@
 package com.educollab.service;
 
+import com.educollab.dto.CreateBillingRuleRequest;
 import com.educollab.model.PaymentSchedule;
+import com.educollab.dto.CreateBillingRuleRequest;
 import com.educollab.model.Student;
 import com.educollab.repository.PaymentScheduleRepository;
 import com.educollab.repository.StudentRepository;
@@ -23,8 +25,11 @@ public class BillingRuleService {
     @Autowired
     private StudentRepository studentRepository;
     
+    @Autowired
+    private DataVersionService dataVersionService;
+    
     @Transactional(rollbackFor = Exception.class)
-    public Map<String, Object> createBillingRule(Map<String, Object> request) {
+    public Map<String, Object> createBillingRule(CreateBillingRuleRequest request) {
         try {
             System.out.println("========================================");
             System.out.println("📅 Creating new billing rule:");
@@ -32,12 +37,12 @@ public class BillingRuleService {
             System.out.println("========================================");
             
             // Extract billing rule details
-            String studentIdStr = (String) request.get("studentId");
-            BigDecimal amount = new BigDecimal(request.get("amount").toString());
-            String startDateStr = (String) request.get("startDate");
-            String billingRule = (String) request.get("billingRrule"); // Note: using "billingRrule" as in request
-            String item = request.get("item") != null ? (String) request.get("item") : null;
-            String note = request.get("note") != null ? (String) request.get("note") : null;
+            String studentIdStr = request.studentId();
+            BigDecimal amount = request.amount();
+            String startDateStr = request.startDate();
+            String billingRule = request.billingRrule(); // Note: using "billingRrule" as in request
+            String item = request.item();
+            String note = request.note();
             
             System.out.println("Student ID: " + studentIdStr);
             System.out.println("Amount: " + amount);
@@ -50,6 +55,9 @@ public class BillingRuleService {
             if (studentIdStr == null || studentIdStr.isEmpty()) {
                 throw new RuntimeException("studentId is required");
             }
+            if (amount == null) {
+                throw new RuntimeException("amount is required");
+            }
             if (billingRule == null || billingRule.isEmpty()) {
                 throw new RuntimeException("billingRrule is required");
             }
@@ -76,6 +84,7 @@ public class BillingRuleService {
             paymentSchedule.setNote(note);
             
             PaymentSchedule savedSchedule = paymentScheduleRepository.save(paymentSchedule);
+            dataVersionService.bumpStudent(studentId);
             
             System.out.println("✅ Billing rule saved with ID: " + savedSchedule.getId());
             System.out.println("========================================");
@@ -0,0 +1,340 @@
+package com.educollab.service;
+
+import com.educollab.dto.ScheduleConflict;
+import com.educollab.model.Course;
+import com.educollab.model.Schedule;
+import com.educollab.repository.CourseRepository;
+import com.educollab.repository.ScheduleRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory interval index of weekly recurring slots per teacher and per location, used to
+ * reject double bookings when institution courses are created and to answer
+ * /api/v1/courses/conflicts.
+ *
+ * Teacher and location names are free text, so they are only meaningful within one
+ * institution: trees are keyed by institution id plus the normalized name. Parent-created
+ * courses (no institution) are not indexed; those are checked against the student's own
+ * timetable instead (StudentTimetableCache).
+ *
+ * Each teacher/location has a SlotTree: slots keyed by their start in minutes since Monday
+ * 00:00, plus the longest slot length. Slots overlapping [s, e) can only start in
+ * (s - longest, e), so a query is one range lookup, O(log n + k), and never expands
+ * recurrences. Date bounds are compared on the k candidates.
+ *
+ * The index is built on first use and rebuilt every app.booking-index.refresh-ms to pick up
+ * rows changed directly in Supabase; schedules created through the API are added after their
+ * transaction commits. Daily and monthly schedules are not indexed.
+ */
+@Service
+public class BookingIndex {
+    
+    static final String TEACHER = "teacher";
+    static final String LOCATION = "location";
+    
+    @Autowired
+    private CourseRepository courseRepository;
+    
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate readOnlyTransactionTemplate;
+    
+    private volatile Snapshot snapshot;
+    
+    @PostConstruct
+    void init() {
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+    }
+    
+    /**
+     * Existing bookings of the institution that clash with the candidate slot for the same
+     * teacher or location. Null or blank names, and a null institution, are not checked;
+     * slots of excludeCourseId are ignored.
+     */
+    public List<ScheduleConflict> findConflicts(UUID institutionId,
+                                                String teacherName,
+                                                String location,
+                                                WeeklySlot candidate,
+                                                UUID excludeCourseId) {
+        List<ScheduleConflict> conflicts = new ArrayList<>();
+        if (institutionId == null) {
+            return conflicts;
+        }
+        Snapshot current = snapshot();
+        collect(current.teachers, TEACHER, institutionId, teacherName, candidate, excludeCourseId, conflicts);
+        collect(current.locations, LOCATION, institutionId, location, candidate, excludeCourseId, conflicts);
+        return conflicts;
+    }
+    
+    /**
+     * All weekly slots the institution has booked for the teacher or the location (for the
+     * free-slot finder).
+     */
+    List<WeeklySlot> bookedSlots(UUID institutionId, String teacherName, String location) {
+        List<WeeklySlot> slots = new ArrayList<>();
+        if (institutionId == null) {
+            return slots;
+        }
+        Snapshot current = snapshot();
+        addSlots(current.teachers, institutionId, teacherName, slots);
+        addSlots(current.locations, institutionId, location, slots);
+        return slots;
+    }
+    
+    /**
+     * Add a course's new schedules once the surrounding transaction has committed.
+     */
+    public void indexAfterCommit(Course course, List<Schedule> schedules) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    index(course, schedules);
+                }
+            });
+        } else {
+            index(course, schedules);
+        }
+    }
+    
+    private void index(Course course, List<Schedule> schedules) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // Not built yet; the first query loads everything including these rows
+            return;
+        }
+        synchronized (current) {
+            for (Schedule schedule : schedules) {
+                current.remove(schedule.getId());
+            }
+            for (Schedule schedule : schedules) {
+                current.add(course, WeeklySlot.of(schedule, course, schedules.size()));
+            }
+        }
+        System.out.println("🗂️ Booking index: added " + schedules.size() + " schedule(s) of course " + course.getId());
+    }
+    
+    @Scheduled(initialDelayString = "${app.booking-index.refresh-ms:600000}",
+               fixedDelayString = "${app.booking-index.refresh-ms:600000}")
+    public void refresh() {
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            snapshot = build();
+        } catch (Exception e) {
+            System.err.println("⚠️ Booking index refresh failed, keeping previous index: " + e.getMessage());
+        }
+    }
+    
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = build();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    private Snapshot build() {
+        long started = System.currentTimeMillis();
+        return readOnlyTransactionTemplate.execute(status -> {
+            Map<UUID, Course> courses = new HashMap<>();
+            for (Course course : courseRepository.findAll()) {
+                courses.put(course.getId(), course);
+            }
+            List<Schedule> schedules = scheduleRepository.findAll();
+            Map<UUID, Integer> schedulesPerCourse = new HashMap<>();
+            for (Schedule schedule : schedules) {
+                schedulesPerCourse.merge(schedule.getCourseId(), 1, Integer::sum);
+            }
+            
+            Snapshot built = new Snapshot();
+            for (Schedule schedule : schedules) {
+                Course course = courses.get(schedule.getCourseId());
+                if (course != null) {
+                    built.add(course, WeeklySlot.of(schedule, course, schedulesPerCourse.get(schedule.getCourseId())));
+                }
+            }
+            System.out.println("🗂️ Booking index built: " + built.slotsBySchedule.size() + " weekly slot(s), " +
+                              built.teachers.size() + " teacher(s), " + built.locations.size() + " location(s) in " +
+                              (System.currentTimeMillis() - started) + " ms");
+            return built;
+        });
+    }
+    
+    private void collect(Map<String, SlotTree> trees,
+                         String resource,
+                         UUID institutionId,
+                         String name,
+                         WeeklySlot candidate,
+                         UUID excludeCourseId,
+                         List<ScheduleConflict> conflicts) {
+        String key = key(institutionId, name);
+        if (key == null) {
+            return;
+        }
+        SlotTree tree = trees.get(key);
+        if (tree == null) {
+            return;
+        }
+        for (Booking booking : tree.overlapping(candidate)) {
+            if (booking.slot.courseId().equals(excludeCourseId)) {
+                continue;
+            }
+            WeeklySlot slot = booking.slot;
+            conflicts.add(new ScheduleConflict(
+                resource,
+                name,
+                slot.courseId(),
+                booking.courseName,
+                slot.scheduleId(),
+                slot.day().toString(),
+                slot.startTime(),
+                slot.endTime(),
+                slot.fromDate(),
+                slot.toDate()
+            ));
+        }
+    }
+    
+    private void addSlots(Map<String, SlotTree> trees, UUID institutionId, String name, List<WeeklySlot> slots) {
+        String key = key(institutionId, name);
+        SlotTree tree = key != null ? trees.get(key) : null;
+        if (tree != null) {
+            slots.addAll(tree.slots());
+        }
+    }
+    
+    static String normalize(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Tree key of a teacher or location: institution id plus normalized name, or null when
+     * either is missing.
+     */
+    private static String key(UUID institutionId, String name) {
+        String normalized = normalize(name);
+        if (institutionId == null || normalized == null) {
+            return null;
+        }
+        return institutionId + "|" + normalized;
+    }
+    
+    private record Booking(WeeklySlot slot, String courseName) {}
+    
+    /**
+     * All trees of one build. Queries read it without locking (the trees lock themselves);
+     * incremental adds lock the snapshot so they cannot interleave with each other.
+     */
+    private static class Snapshot {
+        final Map<String, SlotTree> teachers = new ConcurrentHashMap<>();
+        final Map<String, SlotTree> locations = new ConcurrentHashMap<>();
+        final Map<UUID, Booking> slotsBySchedule = new ConcurrentHashMap<>();
+        final Map<UUID, Course> coursesBySchedule = new ConcurrentHashMap<>();
+        
+        void add(Course course, WeeklySlot slot) {
+            if (slot == null || course.getInstitutionId() == null) {
+                return;
+            }
+            Booking booking = new Booking(slot, course.getName());
+            slotsBySchedule.put(slot.scheduleId(), booking);
+            coursesBySchedule.put(slot.scheduleId(), course);
+            String teacher = key(course.getInstitutionId(), course.getTeacherName());
+            if (teacher != null) {
+                teachers.computeIfAbsent(teacher, key -> new SlotTree()).add(booking);
+            }
+            String location = key(course.getInstitutionId(), course.getLocation());
+            if (location != null) {
+                locations.computeIfAbsent(location, key -> new SlotTree()).add(booking);
+            }
+        }
+        
+        void remove(UUID scheduleId) {
+            Booking booking = slotsBySchedule.remove(scheduleId);
+            Course course = coursesBySchedule.remove(scheduleId);
+            if (booking == null || course == null) {
+                return;
+            }
+            String teacher = key(course.getInstitutionId(), course.getTeacherName());
+            if (teacher != null && teachers.containsKey(teacher)) {
+                teachers.get(teacher).remove(booking);
+            }
+            String location = key(course.getInstitutionId(), course.getLocation());
+            if (location != null && locations.containsKey(location)) {
+                locations.get(location).remove(booking);
+            }
+        }
+    }
+    
+    /**
+     * Slots of one teacher or location ordered by weekly start minute.
+     */
+    private static class SlotTree {
+        private final NavigableMap<Integer, List<Booking>> byStart = new TreeMap<>();
+        private int longest;
+        
+        synchronized void add(Booking booking) {
+            byStart.computeIfAbsent(booking.slot.weekStart(), key -> new ArrayList<>(1)).add(booking);
+            longest = Math.max(longest, booking.slot.endMinute() - booking.slot.startMinute());
+        }
+        
+        synchronized void remove(Booking booking) {
+            List<Booking> atStart = byStart.get(booking.slot.weekStart());
+            if (atStart != null) {
+                atStart.remove(booking);
+                if (atStart.isEmpty()) {
+                    byStart.remove(booking.slot.weekStart());
+                }
+            }
+        }
+        
+        synchronized List<WeeklySlot> slots() {
+            List<WeeklySlot> result = new ArrayList<>();
+            for (List<Booking> atStart : byStart.values()) {
+                for (Booking booking : atStart) {
+                    result.add(booking.slot);
+                }
+            }
+            return result;
+        }
+        
+        synchronized List<Booking> overlapping(WeeklySlot candidate) {
+            List<Booking> result = new ArrayList<>();
+            int from = candidate.weekStart() - longest;
+            for (List<Booking> atStart : byStart.subMap(from, false, candidate.weekEnd(), false).values()) {
+                for (Booking booking : atStart) {
+                    if (booking.slot.weekEnd() > candidate.weekStart()
+                            && booking.slot.overlapsDates(candidate.fromDate(), candidate.toDate())) {
+                        result.add(booking);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.educollab.service;
+
+import com.educollab.dto.ClassEvent;
+import com.educollab.model.Course;
+import com.educollab.model.InstitutionClosure;
+import com.educollab.model.Schedule;
+import com.educollab.model.ScheduleException;
+import com.educollab.repository.CourseRepository;
+import com.educollab.repository.InstitutionClosureRepository;
+import com.educollab.repository.ScheduleExceptionRepository;
+import com.educollab.repository.ScheduleRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Maintains the optional class_occurrences projection: every occurrence of every schedule whose
+ * original date lies in a rolling window (app.occurrences.history-days back, horizon-days ahead),
+ * with exceptions and institution closures already applied. With app.occurrences.enabled,
+ * ClassScheduleService answers /api/v1/class/schedules ranges inside the window from it.
+ *
+ * - Writes that change occurrences (course creation, schedule exceptions, closures) call
+ *   refreshCourses inside their own transaction, which re-materialises those courses only.
+ * - The whole table is rebuilt nightly (app.occurrences.roll-cron) to move the window forward.
+ * - --occurrences=rebuild rebuilds and exits; --occurrences=check compares the projection with
+ *   the live engine for a sample of students and exits non-zero on any difference.
+ *
+ * Rows are produced by the engine itself (expandOriginalOccurrences + applyExceptionIfPresent),
+ * so session counting and limits match by construction; the checker guards the read side.
+ */
+@Service
+public class ClassOccurrenceProjection implements ApplicationRunner {
+    
+    private static final String DELETE_COURSES_SQL =
+        "DELETE FROM class_occurrences WHERE course_id = ANY(?)";
+    
+    private static final String DELETE_ALL_SQL =
+        "DELETE FROM class_occurrences";
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO class_occurrences (schedule_id, course_id, original_date, original_start_time, " +
+        "starts_at, ends_at, duration_minutes, cancelled) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String SELECT_WINDOW_SQL =
+        "SELECT window_start, window_end FROM class_occurrence_window WHERE id = 1";
+    
+    private static final String UPSERT_WINDOW_SQL =
+        "INSERT INTO class_occurrence_window (id, window_start, window_end, rebuilt_at) VALUES (1, ?, ?, NOW()) " +
+        "ON CONFLICT (id) DO UPDATE SET window_start = EXCLUDED.window_start, " +
+        "window_end = EXCLUDED.window_end, rebuilt_at = NOW()";
+    
+    private static final String SELECT_SAMPLE_STUDENTS_SQL =
+        "SELECT DISTINCT student_id FROM course_enrollments LIMIT ?";
+    
+    @Autowired
+    private ClassScheduleService classScheduleService;
+    
+    @Autowired
+    private CourseRepository courseRepository;
+    
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+    
+    @Autowired
+    private ScheduleExceptionRepository scheduleExceptionRepository;
+    
+    @Autowired
+    private InstitutionClosureRepository institutionClosureRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ApplicationContext applicationContext;
+    
+    @Value("${app.occurrences.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${app.occurrences.history-days:365}")
+    private int historyDays;
+    
+    @Value("${app.occurrences.horizon-days:365}")
+    private int horizonDays;
+    
+    @Value("${app.occurrences.check-sample-size:50}")
+    private int checkSampleSize;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    private TransactionTemplate readOnlyTransactionTemplate;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> command = args.getOptionValues("occurrences");
+        if (command == null || command.isEmpty()) {
+            return;
+        }
+        int exitCode;
+        switch (command.get(0)) {
+            case "rebuild":
+                rebuild();
+                exitCode = 0;
+                break;
+            case "check":
+                exitCode = ((Integer) check(checkSampleSize).get("mismatches")) == 0 ? 0 : 1;
+                break;
+            default:
+                System.err.println("❌ Unknown --occurrences command: " + command.get(0) + " (use rebuild or check)");
+                exitCode = 2;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> code));
+    }
+    
+    @Scheduled(cron = "${app.occurrences.roll-cron:0 30 2 * * *}")
+    public void roll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            System.err.println("⚠️ class_occurrences roll failed, keeping previous window: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Replace the whole projection with a window around today, in one transaction (readers keep
+     * seeing the previous rows until it commits).
+     */
+    public int rebuild() {
+        long started = System.currentTimeMillis();
+        LocalDate windowStart = LocalDate.now().minusDays(historyDays);
+        LocalDate windowEnd = LocalDate.now().plusDays(horizonDays);
+        
+        Integer written = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(DELETE_ALL_SQL);
+            int rows = materialise(courseRepository.findAll(), scheduleRepository.findAll(),
+                                   scheduleExceptionRepository.findAll(), institutionClosureRepository.findAll(),
+                                   windowStart, windowEnd);
+            jdbcTemplate.update(UPSERT_WINDOW_SQL, windowStart, windowEnd);
+            return rows;
+        });
+        
+        System.out.println("🗄️ class_occurrences rebuilt: " + written + " row(s) for " + windowStart + " → " + windowEnd +
+                          " in " + (System.currentTimeMillis() - started) + " ms");
+        return written;
+    }
+    
+    /**
+     * Re-materialise the occurrences of these courses inside the caller's transaction, after its
+     * schedule/exception/closure writes. No-op when the projection is disabled or not built yet.
+     */
+    public void refreshCourses(Collection<UUID> courseIds) {
+        if (!enabled || courseIds.isEmpty()) {
+            return;
+        }
+        LocalDate[] window = currentWindow();
+        if (window == null) {
+            return;
+        }
+        // Rows are written with JDBC below; make the caller's pending schedule/closure inserts visible first
+        scheduleRepository.flush();
+        
+        jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement(DELETE_COURSES_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid", courseIds.toArray(new UUID[0])));
+            return statement;
+        });
+        
+        List<Course> courses = courseRepository.findAllById(courseIds);
+        Set<UUID> institutionIds = new HashSet<>();
+        for (Course course : courses) {
+            if (course.getInstitutionId() != null) {
+                institutionIds.add(course.getInstitutionId());
+            }
+        }
+        List<Schedule> schedules = scheduleRepository.findByCourseIdIn(courseIds);
+        Set<UUID> scheduleIds = new HashSet<>();
+        for (Schedule schedule : schedules) {
+            scheduleIds.add(schedule.getId());
+        }
+        List<ScheduleException> exceptions = scheduleIds.isEmpty()
+            ? Collections.emptyList()
+            : scheduleExceptionRepository.findByScheduleIdIn(scheduleIds);
+        List<InstitutionClosure> closures = institutionIds.isEmpty()
+            ? Collections.emptyList()
+            : institutionClosureRepository.findByInstitutionIdIn(institutionIds);
+        
+        int rows = materialise(courses, schedules, exceptions, closures, window[0], window[1]);
+        System.out.println("🗄️ class_occurrences refreshed for " + courseIds.size() + " course(s): " + rows + " row(s)");
+    }
+    
+    /**
+     * Compare the projection with the live engine over the whole window for up to sampleSize
+     * enrolled students.
+     */
+    public Map<String, Object> check(int sampleSize) {
+        Map<String, Object> report = readOnlyTransactionTemplate.execute(status -> {
+            Map<String, Object> result = new LinkedHashMap<>();
+            LocalDate[] window = currentWindow();
+            if (window == null) {
+                result.put("checked", 0);
+                result.put("mismatches", 0);
+                result.put("message", "class_occurrences has not been built");
+                return result;
+            }
+            
+            List<UUID> studentIds = jdbcTemplate.queryForList(SELECT_SAMPLE_STUDENTS_SQL, UUID.class, sampleSize);
+            List<Map<String, Object>> mismatched = new ArrayList<>();
+            for (UUID studentId : studentIds) {
+                try {
+                    List<ClassEvent> live = sorted(classScheduleService
+                        .computeClassSchedules(studentId.toString(), window[0], window[1], null).events());
+                    List<ClassEvent> projected = sorted(classScheduleService
+                        .readMaterialised(studentId.toString(), window[0], window[1], null).events());
+                    if (!live.equals(projected)) {
+                        Map<String, Object> mismatch = new LinkedHashMap<>();
+                        mismatch.put("studentId", studentId.toString());
+                        mismatch.put("liveEvents", live.size());
+                        mismatch.put("projectedEvents", projected.size());
+                        mismatch.put("firstDifference", firstDifference(live, projected));
+                        mismatched.add(mismatch);
+                    }
+                } catch (Exception e) {
+                    System.err.println("⚠️ Occurrence check skipped student " + studentId + ": " + e.getMessage());
+                }
+            }
+            
+            result.put("checked", studentIds.size());
+            result.put("mismatches", mismatched.size());
+            result.put("windowStart", window[0].toString());
+            result.put("windowEnd", window[1].toString());
+            result.put("details", mismatched);
+            return result;
+        });
+        
+        if (((Integer) report.get("mismatches")) == 0) {
+            System.out.println("✅ class_occurrences consistent with the engine for " + report.get("checked") + " student(s)");
+        } else {
+            System.err.println("❌ class_occurrences differs from the engine: " + report);
+        }
+        return report;
+    }
+    
+    private int materialise(Collection<Course> courses,
+                            Collection<Schedule> schedules,
+                            Collection<ScheduleException> exceptions,
+                            Collection<InstitutionClosure> closures,
+                            LocalDate windowStart,
+                            LocalDate windowEnd) {
+        Map<UUID, Course> coursesById = new HashMap<>();
+        for (Course course : courses) {
+            coursesById.put(course.getId(), course);
+        }
+        Map<UUID, Integer> schedulesPerCourse = new HashMap<>();
+        for (Schedule schedule : schedules) {
+            schedulesPerCourse.merge(schedule.getCourseId(), 1, Integer::sum);
+        }
+        Map<UUID, Map<String, ScheduleException>> exceptionsBySchedule = new HashMap<>();
+        for (ScheduleException exception : exceptions) {
+            exceptionsBySchedule
+                .computeIfAbsent(exception.getScheduleId(), id -> new HashMap<>())
+                .put(ClassScheduleService.buildExceptionKey(exception.getOriginalDate(), exception.getOriginalStartTime()), exception);
+        }
+        Map<UUID, ClosureCalendar> calendars = ClosureCalendar.byInstitution(closures);
+        
+        List<Object[]> rows = new ArrayList<>();
+        for (Schedule schedule : schedules) {
+            Course course = coursesById.get(schedule.getCourseId());
+            if (course == null || course.getTotalSessions() == null) {
+                continue;
+            }
+            ClosureCalendar calendar = course.getInstitutionId() != null
+                ? calendars.getOrDefault(course.getInstitutionId(), ClosureCalendar.EMPTY)
+                : ClosureCalendar.EMPTY;
+            ClassScheduleService.OccurrenceOverrides overrides = new ClassScheduleService.OccurrenceOverrides(
+                exceptionsBySchedule.getOrDefault(schedule.getId(), Collections.emptyMap()),
+                calendar
+            );
+            
+            classScheduleService.expandOriginalOccurrences(schedule, course, schedulesPerCourse.get(course.getId()), windowEnd, event -> {
+                LocalDate originalDate = event.startTime().toLocalDate();
+                if (originalDate.isBefore(windowStart)) {
+                    return;
+                }
+                LocalTime originalStartTime = event.startTime().toLocalTime();
+                ClassEvent resolved = classScheduleService.applyExceptionIfPresent(
+                    course.getId(), schedule.getId(), originalDate, originalStartTime, schedule.getDurationMinutes(), overrides);
+                boolean cancelled = resolved == ClassScheduleService.CANCELLED;
+                ClassEvent effective = resolved == null || cancelled ? event : resolved;
+                rows.add(new Object[] {
+                    schedule.getId(),
+                    course.getId(),
+                    originalDate,
+                    originalStartTime,
+                    effective.startTime().toLocalDateTime(),
+                    effective.endTime().toLocalDateTime(),
+                    effective.durationMinutes(),
+                    cancelled
+                });
+            });
+        }
+        
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+        return rows.size();
+    }
+    
+    private LocalDate[] currentWindow() {
+        List<LocalDate[]> windows = jdbcTemplate.query(SELECT_WINDOW_SQL, (rs, rowNum) -> new LocalDate[] {
+            rs.getObject("window_start", LocalDate.class),
+            rs.getObject("window_end", LocalDate.class)
+        });
+        return windows.isEmpty() ? null : windows.get(0);
+    }
+    
+    private static List<ClassEvent> sorted(List<ClassEvent> events) {
+        List<ClassEvent> copy = new ArrayList<>(events);
+        copy.sort(Comparator.comparing(ClassEvent::startTime).thenComparing(ClassEvent::scheduleId));
+        return copy;
+    }
+    
+    private static String firstDifference(List<ClassEvent> live, List<ClassEvent> projected) {
+        for (int i = 0; i < Math.max(live.size(), projected.size()); i++) {
+            ClassEvent a = i < live.size() ? live.get(i) : null;
+            ClassEvent b = i < projected.size() ? projected.get(i) : null;
+            if (!Objects.equals(a, b)) {
+                return "#" + i + " live=" + a + " projected=" + b;
+            }
+        }
+        return null;
+    }
+}
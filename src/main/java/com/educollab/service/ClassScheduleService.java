@@ -1,29 +1,73 @@
 package com.educollab.service;
 
+import com.educollab.dto.ClassEvent;
+import com.educollab.dto.ClassSchedulePage;
+import com.educollab.dto.ClassScheduleResponse;
+import com.educollab.dto.CourseInfo;
 import com.educollab.model.Course;
 import com.educollab.model.Enrollment;
+import com.educollab.model.InstitutionClosure;
 import com.educollab.model.Schedule;
 import com.educollab.model.ScheduleException;
 import com.educollab.model.Student;
 import com.educollab.repository.CourseRepository;
 import com.educollab.repository.EnrollmentRepository;
+import com.educollab.repository.InstitutionClosureRepository;
 import com.educollab.repository.ScheduleExceptionRepository;
 import com.educollab.repository.ScheduleRepository;
 import com.educollab.repository.StudentRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 @Service
 public class ClassScheduleService {
     
+    private static final Comparator<ClassEvent> BY_START_TIME = Comparator.comparing(ClassEvent::startTime);
+    
+    // Total order used by paging cursors (several schedules can start at the same time)
+    private static final Comparator<ClassEvent> BY_START_TIME_AND_SCHEDULE =
+        BY_START_TIME.thenComparing(ClassEvent::scheduleId);
+    
+    // Marker returned by applyExceptionIfPresent for a cancelled occurrence
+    static final ClassEvent CANCELLED = new ClassEvent(null, null, null, null, 0);
+    
+    // Days expanded per step while looking for a schedule's next occurrence
+    private static final int NEXT_OCCURRENCE_STEP_DAYS = 35;
+    
+    private static final String SELECT_OCCURRENCE_WINDOW_SQL =
+        "SELECT window_start, window_end FROM class_occurrence_window WHERE id = 1";
+    
+    // Range scan on (course_id, original_date) for the courses the student is enrolled in
+    private static final String SELECT_STUDENT_OCCURRENCES_SQL =
+        "SELECT o.schedule_id, o.course_id, o.original_date, o.starts_at, o.ends_at, o.duration_minutes, o.cancelled " +
+        "FROM class_occurrences o " +
+        "WHERE o.course_id IN (SELECT e.course_id FROM course_enrollments e WHERE e.student_id = ?) " +
+        "AND o.original_date BETWEEN ? AND ? " +
+        "ORDER BY o.schedule_id, o.original_date, o.original_start_time";
+    
     @Autowired
     private EnrollmentRepository enrollmentRepository;
     
@@ -39,8 +83,59 @@ public class ClassScheduleService {
     @Autowired
     private StudentRepository studentRepository;
     
+    @Autowired
+    private InstitutionClosureRepository institutionClosureRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${app.occurrences.enabled:false}")
+    private boolean occurrencesEnabled;
+    
+    @Value("${app.next-class.horizon-days:366}")
+    private int nextClassHorizonDays;
+    
+    @Value("${app.class-pages.default-page-size:50}")
+    private int defaultPageSize;
+    
+    @Value("${app.class-pages.max-page-size:500}")
+    private int maxPageSize;
+    
+    // Paged requests without an end date scroll this far past startDate
+    @Value("${app.class-pages.max-range-days:730}")
+    private int maxPageRangeDays;
+    
+    // 0 = one worker per available processor
+    @Value("${app.expansion.parallelism:0}")
+    private int expansionParallelism;
+    
+    // Estimated occurrences below which a plan is expanded on the calling thread
+    @Value("${app.expansion.parallel-threshold:2000}")
+    private long parallelThreshold;
+    
+    private ForkJoinPool expansionPool;
+    
+    @PostConstruct
+    void init() {
+        int parallelism = expansionParallelism > 0 ? expansionParallelism : Runtime.getRuntime().availableProcessors();
+        expansionPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("expansion-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        System.out.println("📅 Schedule expansion pool: parallelism=" + parallelism + ", threshold=" + parallelThreshold + " occurrence(s)");
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        expansionPool.shutdown();
+    }
+    
     @Transactional(readOnly = true)
-    public Map<String, Object> getClassSchedules(String studentIdStr, 
+    public ClassScheduleResponse getClassSchedules(String studentIdStr, 
                                                    LocalDate startDate, 
                                                    LocalDate endDate, 
                                                    Integer maximumCount) {
@@ -53,188 +148,964 @@ public class ClassScheduleService {
             System.out.println("Maximum Count: " + maximumCount);
             System.out.println("========================================");
             
-            // Validate student exists
-            UUID studentId = UUID.fromString(studentIdStr);
-            Student student = studentRepository.findById(studentId)
-                .orElseThrow(() -> new RuntimeException("Student not found with ID: " + studentIdStr));
-            
-            System.out.println("✅ Student validated: " + student.getName());
+            if (occurrencesEnabled && occurrenceWindowCovers(startDate, endDate)) {
+                ClassScheduleResponse response = readMaterialised(studentIdStr, startDate, endDate, maximumCount);
+                System.out.println("========================================");
+                return response;
+            }
             
-            // Step 1: Find all enrollments for this student
-            List<Enrollment> enrollments = enrollmentRepository.findByStudentId(studentId);
+            ClassScheduleResponse response = computeClassSchedules(studentIdStr, startDate, endDate, maximumCount);
+            System.out.println("========================================");
+            return response;
             
-            if (enrollments.isEmpty()) {
-                System.out.println("⚠️ No enrollments found for student");
+        } catch (Exception e) {
+            System.err.println("❌ Error getting class schedules: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to get class schedules: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * The next occurrence of each of the student's courses starting at or after the given time,
+     * as a ClassScheduleResponse with one event per course (earliest first).
+     *
+     * Instead of expanding a window from today, each schedule's next date is computed from its
+     * recurrence rule, with its remaining session budget (resolveOccurrenceLimit) so finished
+     * courses return nothing. Only schedules whose exceptions or closures touch that date are
+     * expanded, a few weeks at a time, so cancelled, moved and closed dates resolve as usual.
+     */
+    @Transactional(readOnly = true)
+    public ClassScheduleResponse getNextClasses(String studentIdStr, LocalDateTime after, UUID courseId) {
+        try {
+            long started = System.nanoTime();
+            ExpansionPlan plan = loadExpansionPlan(studentIdStr);
+            if (plan == null) {
                 return buildEmptyResponse();
             }
             
-            System.out.println("✅ Found " + enrollments.size() + " enrollment(s)");
+            long maxBackwardShiftDays = plan.maxBackwardShiftDays();
+            Map<UUID, ClassEvent> nextByCourse = new HashMap<>();
+            for (Schedule schedule : plan.schedules) {
+                if (courseId != null && !courseId.equals(schedule.getCourseId())) {
+                    continue;
+                }
+                Course course = plan.coursesMap.get(schedule.getCourseId());
+                if (course == null) {
+                    continue;
+                }
+                ClassEvent next = nextOccurrence(
+                    schedule,
+                    course,
+                    plan.schedulesPerCourse.getOrDefault(schedule.getCourseId(), 1),
+                    plan.courseInactiveDateMap.get(schedule.getCourseId()),
+                    plan.overridesFor(schedule),
+                    after,
+                    maxBackwardShiftDays
+                );
+                if (next != null) {
+                    nextByCourse.merge(schedule.getCourseId(), next,
+                                       (a, b) -> BY_START_TIME.compare(a, b) <= 0 ? a : b);
+                }
+            }
+            
+            List<ClassEvent> events = new ArrayList<>(nextByCourse.values());
+            events.sort(BY_START_TIME);
+            List<CourseInfo> courses = buildCourseList(plan);
+            if (courseId != null) {
+                courses.removeIf(info -> !courseId.equals(info.courseId()));
+            }
             
-            // Step 2: Extract unique course IDs and track status/inactive dates
-            Set<UUID> courseIds = new HashSet<>();
-            Map<UUID, String> courseStatusMap = new HashMap<>();
-            Map<UUID, LocalDate> courseInactiveDateMap = new HashMap<>();
+            System.out.println("✅ Next class for " + events.size() + " course(s) after " + after + " in " +
+                              (System.nanoTime() - started) / 1000 + " µs");
+            return new ClassScheduleResponse(courses, events);
             
-            for (Enrollment enrollment : enrollments) {
-                UUID courseId = enrollment.getCourseId();
-                courseIds.add(courseId);
-                String status = enrollment.getStatus() != null ? enrollment.getStatus() : "active";
-                
-                if ("active".equalsIgnoreCase(status)) {
-                    courseStatusMap.put(courseId, "active");
-                    courseInactiveDateMap.remove(courseId);
-                } else {
-                    courseStatusMap.putIfAbsent(courseId, status);
-                    LocalDate deactivatedDate = enrollment.getDeactivatedAt() != null
-                        ? enrollment.getDeactivatedAt().toLocalDate()
-                        : LocalDate.now();
-                    LocalDate currentInactive = courseInactiveDateMap.get(courseId);
-                    if (currentInactive == null || deactivatedDate.isBefore(currentInactive)) {
-                        courseInactiveDateMap.put(courseId, deactivatedDate);
+        } catch (Exception e) {
+            System.err.println("❌ Error getting next classes: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to get next classes: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * First occurrence of one schedule starting at or after the given time, or null when its
+     * sessions are used up, the enrollment ends first or nothing is left within the horizon.
+     *
+     * The candidate date comes straight from the recurrence rule (nextRuleDate); the expander is
+     * only used when an exception or closure touches the dates up to that candidate.
+     */
+    private ClassEvent nextOccurrence(Schedule schedule,
+                                      Course course,
+                                      int numberOfSchedulesForCourse,
+                                      LocalDate inactiveDate,
+                                      OccurrenceOverrides overrides,
+                                      LocalDateTime after,
+                                      long maxBackwardShiftDays) {
+        LocalDate from = after.toLocalDate();
+        int budget = resolveOccurrenceLimit(schedule, course, numberOfSchedulesForCourse, from, null, inactiveDate);
+        
+        LocalDate horizon = from.plusDays(nextClassHorizonDays);
+        if (inactiveDate != null && inactiveDate.isBefore(horizon)) {
+            horizon = inactiveDate;
+        }
+        
+        int remaining = budget;
+        LocalDate candidate = nextRuleDate(schedule, schedule.getStartDate().isAfter(from) ? schedule.getStartDate() : from);
+        while (remaining > 0 && !candidate.isAfter(horizon)) {
+            if (overridesTouch(overrides, from, candidate, schedule.getStartTime())) {
+                return expandToNextOccurrence(schedule, budget, horizon, inactiveDate, overrides, after, maxBackwardShiftDays);
+            }
+            ClassEvent event = createEvent(schedule.getId(), schedule.getCourseId(), candidate,
+                                           schedule.getStartTime(), schedule.getDurationMinutes());
+            if (!event.startTime().toLocalDateTime().isBefore(after)) {
+                return event;
+            }
+            // Only the occurrence on the requested day itself can start before the requested time
+            remaining--;
+            candidate = nextRuleDate(schedule, candidate.plusDays(1));
+        }
+        return null;
+    }
+    
+    /**
+     * Whether an exception or closure can change which occurrence comes first up to the candidate:
+     * the candidate's own slot has an exception or falls on a closed day, or an exception moves an
+     * occurrence onto a date between the requested day and the candidate.
+     */
+    private static boolean overridesTouch(OccurrenceOverrides overrides, LocalDate from, LocalDate candidate, LocalTime startTime) {
+        if (overrides.closures().isClosed(candidate)
+            || overrides.exceptions().containsKey(buildExceptionKey(candidate, startTime))) {
+            return true;
+        }
+        for (ScheduleException exception : overrides.exceptions().values()) {
+            LocalDate newDate = exception.getNewDate();
+            if (newDate != null && !newDate.isBefore(from) && !newDate.isAfter(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * nextOccurrence through the expander, a few weeks at a time, so cancelled, moved and closed
+     * occurrences are resolved exactly as in the schedule view.
+     */
+    private ClassEvent expandToNextOccurrence(Schedule schedule,
+                                              int remaining,
+                                              LocalDate horizon,
+                                              LocalDate inactiveDate,
+                                              OccurrenceOverrides overrides,
+                                              LocalDateTime after,
+                                              long maxBackwardShiftDays) {
+        LocalDate from = after.toLocalDate();
+        ClassEvent best = null;
+        List<ClassEvent> found = new ArrayList<>();
+        while (remaining > 0 && !from.isAfter(horizon)) {
+            // Occurrences from later steps can only start earlier than this if an exception moved them back
+            if (best != null && best.startTime().toLocalDate().isBefore(from.minusDays(maxBackwardShiftDays))) {
+                break;
+            }
+            LocalDate to = from.plusDays(NEXT_OCCURRENCE_STEP_DAYS - 1);
+            LocalDate effectiveFrom = schedule.getStartDate().isAfter(from) ? schedule.getStartDate() : from;
+            if (!effectiveFrom.isAfter(to)) {
+                found.clear();
+                remaining -= expandSchedule(schedule, effectiveFrom, to, remaining, inactiveDate, overrides, found::add);
+                for (ClassEvent event : found) {
+                    if (!event.startTime().toLocalDateTime().isBefore(after)
+                        && (best == null || BY_START_TIME.compare(event, best) < 0)) {
+                        best = event;
                     }
                 }
             }
-            
-            System.out.println("✅ Found " + courseIds.size() + " course(s) (active + inactive)");
-            
-            // Step 3: Get all courses
-            Map<UUID, Course> coursesMap = new HashMap<>();
-            List<Course> courses = courseRepository.findAllById(courseIds);
-            for (Course course : courses) {
-                coursesMap.put(course.getId(), course);
+            from = to.plusDays(1);
+        }
+        return best;
+    }
+    
+    /**
+     * First date on or after the given one on which the schedule's recurrence places an
+     * occurrence, computed from the rule the same way the expander walks it.
+     */
+    private LocalDate nextRuleDate(Schedule schedule, LocalDate onOrAfter) {
+        LocalDate scheduleStartDate = schedule.getStartDate();
+        String recurrenceRule = schedule.getRecurrenceRule();
+        DayOfWeek weekday = parseDayOfWeek(schedule.getDayOfWeek());
+        if (weekday == null) {
+            weekday = scheduleStartDate.getDayOfWeek();
+        }
+        
+        if (recurrenceRule == null || recurrenceRule.isEmpty()) {
+            return onOrAfter.with(TemporalAdjusters.nextOrSame(weekday));
+        }
+        
+        if (!recurrenceRule.toUpperCase().startsWith("FREQ=")) {
+            switch (recurrenceRule.toLowerCase()) {
+                case "daily":
+                    return onOrAfter;
+                case "monthly":
+                    return nextDayOfMonth(scheduleStartDate.getDayOfMonth(), onOrAfter);
+                default:
+                    return onOrAfter.with(TemporalAdjusters.nextOrSame(weekday));
             }
-            
-            // Step 4: Get all schedules for these courses
-            List<Schedule> allSchedules = new ArrayList<>();
-            for (UUID courseId : courseIds) {
-                List<Schedule> schedules = scheduleRepository.findByCourseId(courseId);
-                allSchedules.addAll(schedules);
+        }
+        
+        String freq = null;
+        Integer byMonthDay = null;
+        String byDay = null;
+        for (String part : recurrenceRule.toUpperCase().split(";")) {
+            if (part.startsWith("FREQ=")) {
+                freq = part.substring(5);
+            } else if (part.startsWith("BYMONTHDAY=")) {
+                byMonthDay = Integer.parseInt(part.substring(11));
+            } else if (part.startsWith("BYDAY=")) {
+                byDay = part.substring(6);
             }
-            
-            System.out.println("✅ Found " + allSchedules.size() + " schedule(s)");
-            
-            // Fetch all schedule exceptions relevant to these schedules
-            Set<UUID> scheduleIds = new HashSet<>();
-            for (Schedule schedule : allSchedules) {
-                scheduleIds.add(schedule.getId());
+        }
+        
+        switch (freq != null ? freq : "WEEKLY") {
+            case "DAILY":
+                return onOrAfter;
+            case "WEEKLY":
+                DayOfWeek targetDay = parseDayOfWeekString(byDay);
+                if (targetDay == null) {
+                    targetDay = scheduleStartDate.getDayOfWeek();
+                }
+                return onOrAfter.with(TemporalAdjusters.nextOrSame(targetDay));
+            case "MONTHLY":
+                if (byMonthDay != null) {
+                    return nextDayOfMonth(byMonthDay, onOrAfter);
+                }
+                // Same weekday of the same week of the month as the schedule's start date
+                DayOfWeek dow = scheduleStartDate.getDayOfWeek();
+                int weekOfMonth = (scheduleStartDate.getDayOfMonth() - 1) / 7 + 1;
+                LocalDate sameWeek = onOrAfter.with(TemporalAdjusters.firstInMonth(dow)).plusWeeks(weekOfMonth - 1);
+                if (sameWeek.isBefore(onOrAfter)) {
+                    sameWeek = onOrAfter.plusMonths(1).with(TemporalAdjusters.firstInMonth(dow)).plusWeeks(weekOfMonth - 1);
+                }
+                return sameWeek;
+            default:
+                return onOrAfter.with(TemporalAdjusters.nextOrSame(scheduleStartDate.getDayOfWeek()));
+        }
+    }
+    
+    /**
+     * First date on or after the given one falling on the day of month, clamped to short months.
+     */
+    private static LocalDate nextDayOfMonth(int dayOfMonth, LocalDate onOrAfter) {
+        LocalDate date = onOrAfter.withDayOfMonth(Math.min(dayOfMonth, onOrAfter.lengthOfMonth()));
+        if (date.isBefore(onOrAfter)) {
+            LocalDate nextMonth = onOrAfter.plusMonths(1);
+            date = nextMonth.withDayOfMonth(Math.min(dayOfMonth, nextMonth.lengthOfMonth()));
+        }
+        return date;
+    }
+    
+    /**
+     * The live expansion engine, regardless of the class_occurrences projection.
+     */
+    ClassScheduleResponse computeClassSchedules(String studentIdStr,
+                                                LocalDate startDate,
+                                                LocalDate endDate,
+                                                Integer maximumCount) {
+        ExpansionPlan plan = loadExpansionPlan(studentIdStr);
+        if (plan == null) {
+            return buildEmptyResponse();
+        }
+        long started = System.nanoTime();
+        ClassScheduleResponse response = expandPlan(plan, startDate, endDate, maximumCount);
+        System.out.println("✅ Generated " + response.events().size() + " event(s) from " + plan.schedules.size() +
+                          " schedule(s) in " + (System.nanoTime() - started) / 1000 + " µs");
+        return response;
+    }
+    
+    /**
+     * Whether the class_occurrences projection holds every original date of [startDate, endDate].
+     */
+    boolean occurrenceWindowCovers(LocalDate startDate, LocalDate endDate) {
+        List<LocalDate[]> windows = jdbcTemplate.query(SELECT_OCCURRENCE_WINDOW_SQL, (rs, rowNum) -> new LocalDate[] {
+            rs.getObject("window_start", LocalDate.class),
+            rs.getObject("window_end", LocalDate.class)
+        });
+        return !windows.isEmpty()
+            && !startDate.isBefore(windows.get(0)[0])
+            && !endDate.isAfter(windows.get(0)[1]);
+    }
+    
+    /**
+     * Same response as the engine, read from the class_occurrences projection: one range scan
+     * joined to the student's enrollments instead of expanding every schedule.
+     *
+     * Rows carry the original date, so the range, the enrollment's inactive date and the
+     * per-schedule maximumCount (cancelled occurrences included, as in the engine) apply the
+     * same way; cancelled rows are then dropped.
+     */
+    ClassScheduleResponse readMaterialised(String studentIdStr,
+                                           LocalDate startDate,
+                                           LocalDate endDate,
+                                           Integer maximumCount) {
+        UUID studentId = UUID.fromString(studentIdStr);
+        Student student = studentRepository.findById(studentId)
+            .orElseThrow(() -> new RuntimeException("Student not found with ID: " + studentIdStr));
+        
+        List<Enrollment> enrollments = enrollmentRepository.findByStudentId(studentId);
+        if (enrollments.isEmpty()) {
+            System.out.println("⚠️ No enrollments found for student");
+            return buildEmptyResponse();
+        }
+        Set<UUID> courseIds = new HashSet<>();
+        for (Enrollment enrollment : enrollments) {
+            courseIds.add(enrollment.getCourseId());
+        }
+        ExpansionPlan plan = buildExpansionPlan(enrollments, courseRepository.findAllById(courseIds),
+                                                Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+        
+        List<ClassEvent> events = new ArrayList<>();
+        Map<UUID, Integer> consumedBySchedule = new HashMap<>();
+        jdbcTemplate.query(SELECT_STUDENT_OCCURRENCES_SQL, rs -> {
+            UUID courseId = rs.getObject("course_id", UUID.class);
+            if (!plan.coursesMap.containsKey(courseId)) {
+                return;
+            }
+            LocalDate originalDate = rs.getObject("original_date", LocalDate.class);
+            LocalDate inactiveDate = plan.courseInactiveDateMap.get(courseId);
+            if (inactiveDate != null && originalDate.isAfter(inactiveDate)) {
+                return;
+            }
+            UUID scheduleId = rs.getObject("schedule_id", UUID.class);
+            int consumed = consumedBySchedule.merge(scheduleId, 1, Integer::sum);
+            if (maximumCount != null && consumed > maximumCount) {
+                return;
             }
-            Map<UUID, List<ScheduleException>> exceptionsBySchedule = new HashMap<>();
-            if (!scheduleIds.isEmpty()) {
-                List<ScheduleException> exceptions = scheduleExceptionRepository.findByScheduleIdIn(scheduleIds);
-                for (ScheduleException exception : exceptions) {
-                    exceptionsBySchedule
-                        .computeIfAbsent(exception.getScheduleId(), key -> new ArrayList<>())
-                        .add(exception);
+            if (rs.getBoolean("cancelled")) {
+                return;
+            }
+            events.add(new ClassEvent(
+                scheduleId,
+                courseId,
+                rs.getObject("starts_at", LocalDateTime.class).atOffset(ZoneOffset.UTC),
+                rs.getObject("ends_at", LocalDateTime.class).atOffset(ZoneOffset.UTC),
+                rs.getInt("duration_minutes")
+            ));
+        }, studentId, startDate, endDate);
+        
+        events.sort(BY_START_TIME);
+        System.out.println("✅ Read " + events.size() + " event(s) for " + student.getName() + " from class_occurrences");
+        return new ClassScheduleResponse(buildCourseList(plan), events);
+    }
+    
+    /**
+     * Every occurrence of a schedule from its first date up to endDate, counted and limited as the
+     * engine does but with no exception or closure applied (for the class_occurrences projection).
+     */
+    void expandOriginalOccurrences(Schedule schedule,
+                                   Course course,
+                                   int numberOfSchedulesForCourse,
+                                   LocalDate endDate,
+                                   Consumer<ClassEvent> sink) {
+        OccurrenceOverrides none = new OccurrenceOverrides(Collections.emptyMap(), ClosureCalendar.EMPTY);
+        calculateScheduleEvents(schedule, course, numberOfSchedulesForCourse, schedule.getStartDate(),
+                                endDate, null, null, none, sink);
+    }
+    
+    /**
+     * Streaming variant of getClassSchedules for wide date ranges.
+     * 
+     * The database work happens here, inside the request transaction; the returned body only
+     * runs the (pure CPU) expansion one month at a time and writes events as they are produced,
+     * so heap use does not grow with the size of the range. Output is either the same
+     * {"courses":[...],"events":[...]} document as the buffered endpoint, or NDJSON
+     * ({"courses":[...]} on the first line, then one event per line).
+     */
+    @Transactional(readOnly = true)
+    public StreamingResponseBody streamClassSchedules(String studentIdStr,
+                                                      LocalDate startDate,
+                                                      LocalDate endDate,
+                                                      Integer maximumCount,
+                                                      boolean ndjson) {
+        System.out.println("📡 Streaming class schedules for student " + studentIdStr + " (" + startDate + " → " + endDate + ", ndjson=" + ndjson + ")");
+        
+        ExpansionPlan plan;
+        try {
+            plan = loadExpansionPlan(studentIdStr);
+        } catch (Exception e) {
+            System.err.println("❌ Error getting class schedules: " + e.getMessage());
+            throw new RuntimeException("Failed to get class schedules: " + e.getMessage(), e);
+        }
+        
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                List<CourseInfo> courses = plan != null ? buildCourseList(plan) : Collections.emptyList();
+                Consumer<ClassEvent> writer;
+                if (ndjson) {
+                    generator.setRootValueSeparator(new SerializedString("\n"));
+                    generator.writeObject(Collections.singletonMap("courses", courses));
+                    writer = event -> writeJson(generator, event);
+                } else {
+                    generator.writeStartObject();
+                    generator.writeFieldName("courses");
+                    generator.writeObject(courses);
+                    generator.writeArrayFieldStart("events");
+                    writer = event -> writeJson(generator, event);
+                }
+                generator.flush();
+                
+                long written = plan != null
+                    ? expandInSlices(plan, startDate, endDate, maximumCount, event -> {
+                          writer.accept(event);
+                          return true;
+                      }, () -> flush(generator))
+                    : 0;
+                
+                if (!ndjson) {
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                } else {
+                    generator.writeRaw('\n');
                 }
+                generator.flush();
+                System.out.println("✅ Streamed " + written + " event(s)");
             }
-            
-            // Count schedules per course (to divide totalSessions among schedules)
-            Map<UUID, Integer> schedulesPerCourse = new HashMap<>();
-            for (Schedule schedule : allSchedules) {
-                UUID courseId = schedule.getCourseId();
-                schedulesPerCourse.put(courseId, schedulesPerCourse.getOrDefault(courseId, 0) + 1);
+        };
+    }
+    
+    /**
+     * Expand all schedules month by month, emitting events in (startTime, scheduleId) order.
+     * 
+     * An exception can move an occurrence to another date, so events are held in a small
+     * priority buffer and only released once no later slice can produce anything earlier.
+     * Expansion stops as soon as emit returns false; afterSlice runs after each month.
+     */
+    private long expandInSlices(ExpansionPlan plan,
+                                LocalDate startDate,
+                                LocalDate endDate,
+                                Integer maximumCount,
+                                Predicate<ClassEvent> emit,
+                                Runnable afterSlice) {
+        // Per-schedule remaining occurrence budget, computed once for the whole range
+        Map<UUID, Integer> remainingBySchedule = new HashMap<>();
+        for (Schedule schedule : plan.schedules) {
+            Course course = plan.coursesMap.get(schedule.getCourseId());
+            if (course == null) {
+                continue;
+            }
+            int limit = resolveOccurrenceLimit(
+                schedule,
+                course,
+                plan.schedulesPerCourse.getOrDefault(schedule.getCourseId(), 1),
+                startDate,
+                maximumCount,
+                plan.courseInactiveDateMap.get(schedule.getCourseId())
+            );
+            if (limit > 0) {
+                remainingBySchedule.put(schedule.getId(), limit);
+            }
+        }
+        
+        long maxBackwardShiftDays = plan.maxBackwardShiftDays();
+        PriorityQueue<ClassEvent> pending = new PriorityQueue<>(BY_START_TIME_AND_SCHEDULE);
+        long written = 0;
+        
+        LocalDate sliceStart = startDate;
+        while (!sliceStart.isAfter(endDate) && !remainingBySchedule.isEmpty()) {
+            LocalDate sliceEnd = sliceStart.with(TemporalAdjusters.lastDayOfMonth());
+            if (sliceEnd.isAfter(endDate)) {
+                sliceEnd = endDate;
             }
             
-            System.out.println("📊 Schedules per course: " + schedulesPerCourse);
-            
-            // Step 5: Pre-calculate events for each schedule
-            List<Map<String, Object>> events = new ArrayList<>();
-            
-            for (Schedule schedule : allSchedules) {
-                Course course = coursesMap.get(schedule.getCourseId());
-                if (course == null) {
+            for (Schedule schedule : plan.schedules) {
+                Integer remaining = remainingBySchedule.get(schedule.getId());
+                if (remaining == null) {
                     continue;
                 }
-                
-                int numberOfSchedulesForCourse = schedulesPerCourse.getOrDefault(schedule.getCourseId(), 1);
-                LocalDate inactiveDate = courseInactiveDateMap.get(schedule.getCourseId());
-                Map<String, ScheduleException> exceptionMap = new HashMap<>();
-                for (ScheduleException exception : exceptionsBySchedule.getOrDefault(schedule.getId(), Collections.emptyList())) {
-                    String key = buildExceptionKey(exception.getOriginalDate(), exception.getOriginalStartTime());
-                    exceptionMap.put(key, exception);
+                LocalDate from = schedule.getStartDate().isAfter(sliceStart) ? schedule.getStartDate() : sliceStart;
+                if (from.isAfter(sliceEnd)) {
+                    continue;
                 }
-                
-                List<Map<String, Object>> scheduleEvents = calculateScheduleEvents(
-                    schedule, 
-                    course,
-                    numberOfSchedulesForCourse,
-                    startDate, 
-                    endDate, 
-                    maximumCount,
-                    inactiveDate,
-                    exceptionMap
+                int consumed = expandSchedule(
+                    schedule,
+                    from,
+                    sliceEnd,
+                    remaining,
+                    plan.courseInactiveDateMap.get(schedule.getCourseId()),
+                    plan.overridesFor(schedule),
+                    pending::add
                 );
-                events.addAll(scheduleEvents);
+                if (consumed >= remaining) {
+                    remainingBySchedule.remove(schedule.getId());
+                } else {
+                    remainingBySchedule.put(schedule.getId(), remaining - consumed);
+                }
             }
             
-            // Sort events by startTime
-            events.sort((e1, e2) -> {
-                String start1 = (String) e1.get("startTime");
-                String start2 = (String) e2.get("startTime");
-                return start1.compareTo(start2);
-            });
+            // Nothing generated from later slices can start before this date
+            LocalDate watermark = sliceEnd.plusDays(1).minusDays(maxBackwardShiftDays);
+            while (!pending.isEmpty() && pending.peek().startTime().toLocalDate().isBefore(watermark)) {
+                written++;
+                if (!emit.test(pending.poll())) {
+                    return written;
+                }
+            }
+            afterSlice.run();
             
-            System.out.println("✅ Generated " + events.size() + " event(s)");
+            sliceStart = sliceEnd.plusDays(1);
+        }
+        
+        while (!pending.isEmpty()) {
+            written++;
+            if (!emit.test(pending.poll())) {
+                return written;
+            }
+        }
+        return written;
+    }
+    
+    /**
+     * One page of a student's events in (startTime, scheduleId) order, resuming after a cursor
+     * "<epochSecond>,<scheduleId>" taken from the previous page (null for the first page).
+     *
+     * Expansion does not replay the range from startDate: every schedule restarts at the
+     * cursor's date with its remaining session budget (resolveOccurrenceLimit), pulled back only
+     * as far as exceptions move occurrences forward, and stops once the page is full, so each
+     * page costs about the same whatever its position. maximumCount is not applied to pages;
+     * without an endDate the range runs app.class-pages.max-range-days past startDate.
+     */
+    @Transactional(readOnly = true)
+    public ClassSchedulePage getClassSchedulePage(String studentIdStr,
+                                                  LocalDate startDate,
+                                                  LocalDate endDate,
+                                                  String after,
+                                                  Integer requestedPageSize) {
+        try {
+            long started = System.nanoTime();
+            PageCursor cursor = PageCursor.parse(after);
+            int pageSize = requestedPageSize != null && requestedPageSize > 0
+                ? Math.min(requestedPageSize, maxPageSize)
+                : defaultPageSize;
+            LocalDate rangeEnd = endDate != null ? endDate : startDate.plusDays(maxPageRangeDays);
+            ExpansionPlan plan = loadExpansionPlan(studentIdStr);
+            if (plan == null) {
+                return new ClassSchedulePage(new ArrayList<>(), new ArrayList<>(), null);
+            }
             
-            // Step 6: Build response
-            List<Map<String, Object>> coursesList = new ArrayList<>();
-            for (Course course : courses) {
-                Map<String, Object> courseData = new HashMap<>();
-                courseData.put("courseId", course.getId().toString());
-                courseData.put("name", course.getName());
-                courseData.put("teacherName", course.getTeacherName());
-                courseData.put("location", course.getLocation());
-                courseData.put("description", course.getDescription());
-                String status = courseStatusMap.getOrDefault(course.getId(), "active");
-                courseData.put("status", status);
-                LocalDate inactiveDate = courseInactiveDateMap.get(course.getId());
-                if (inactiveDate != null) {
-                    courseData.put("inactiveDate", inactiveDate.toString());
+            LocalDate from = startDate;
+            if (cursor != null) {
+                LocalDate resumeDate = cursor.startDate().minusDays(plan.maxForwardShiftDays());
+                if (resumeDate.isAfter(from)) {
+                    from = resumeDate;
                 }
-                coursesList.add(courseData);
             }
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("courses", coursesList);
-            response.put("events", events);
+            List<ClassEvent> events = new ArrayList<>(pageSize);
+            expandInSlices(plan, from, rangeEnd, null, event -> {
+                if (cursor != null && !cursor.isBefore(event)) {
+                    return true;
+                }
+                events.add(event);
+                return events.size() < pageSize;
+            }, () -> {});
+            
+            String nextCursor = events.size() == pageSize
+                ? PageCursor.of(events.get(events.size() - 1)).toString()
+                : null;
             
-            System.out.println("========================================");
-            return response;
+            System.out.println("✅ Page of " + events.size() + " event(s) from " + from + (cursor != null ? " after " + cursor : "") +
+                              " in " + (System.nanoTime() - started) / 1000 + " µs");
+            return new ClassSchedulePage(buildCourseList(plan), events, nextCursor);
             
         } catch (Exception e) {
-            System.err.println("❌ Error getting class schedules: " + e.getMessage());
+            System.err.println("❌ Error getting class schedule page: " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("Failed to get class schedules: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Position of the last event of a page: its start as UTC epoch seconds and its schedule.
+     */
+    private record PageCursor(long epochSecond, UUID scheduleId) {
+        
+        static PageCursor parse(String value) {
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            String[] parts = value.split(",", 2);
+            try {
+                return new PageCursor(Long.parseLong(parts[0].trim()), UUID.fromString(parts[1].trim()));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor (expected <epochSecond>,<scheduleId>): " + value);
+            }
+        }
+        
+        static PageCursor of(ClassEvent event) {
+            return new PageCursor(event.startTime().toEpochSecond(), event.scheduleId());
+        }
+        
+        LocalDate startDate() {
+            return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC).toLocalDate();
+        }
+        
+        /**
+         * Whether the event comes after this cursor in (startTime, scheduleId) order.
+         */
+        boolean isBefore(ClassEvent event) {
+            int byTime = Long.compare(epochSecond, event.startTime().toEpochSecond());
+            return byTime != 0 ? byTime < 0 : scheduleId.compareTo(event.scheduleId()) < 0;
+        }
+        
+        @Override
+        public String toString() {
+            return epochSecond + "," + scheduleId;
+        }
+    }
+    
+    /**
+     * Expand every schedule of a loaded plan and build the buffered response. Pure CPU work on
+     * already-loaded entities, so callers may run it outside the transaction and in parallel.
+     */
+    ClassScheduleResponse expandPlan(ExpansionPlan plan,
+                                     LocalDate startDate,
+                                     LocalDate endDate,
+                                     Integer maximumCount) {
+        long estimatedOccurrences = estimateOccurrences(plan, startDate, endDate, maximumCount);
+        // With a single worker the split only adds overhead (see ClassScheduleExpansionBenchmark)
+        boolean parallel = expansionPool.getParallelism() > 1
+            && plan.schedules.size() > 1
+            && estimatedOccurrences >= parallelThreshold;
+        
+        List<ClassEvent> events = parallel
+            ? expandInParallel(plan, startDate, endDate, maximumCount)
+            : expandSequentially(plan, startDate, endDate, maximumCount);
+        
+        return new ClassScheduleResponse(buildCourseList(plan), events);
+    }
+    
+    private List<ClassEvent> expandSequentially(ExpansionPlan plan,
+                                                LocalDate startDate,
+                                                LocalDate endDate,
+                                                Integer maximumCount) {
+        // Pre-calculate events for each schedule
+        List<ClassEvent> events = new ArrayList<>();
+        
+        for (Schedule schedule : plan.schedules) {
+            expandOne(plan, schedule, startDate, endDate, maximumCount, events::add);
+        }
+        
+        // Sort events by startTime
+        events.sort(BY_START_TIME);
+        return events;
+    }
+    
+    /**
+     * Expand and sort each schedule on the expansion pool, then merge the sorted runs. Ties keep
+     * schedule order, so the result is identical to expandSequentially.
+     */
+    private List<ClassEvent> expandInParallel(ExpansionPlan plan,
+                                              LocalDate startDate,
+                                              LocalDate endDate,
+                                              Integer maximumCount) {
+        List<List<ClassEvent>> runs;
+        try {
+            runs = expansionPool.submit(() -> plan.schedules.parallelStream()
+                .map(schedule -> {
+                    List<ClassEvent> run = new ArrayList<>();
+                    expandOne(plan, schedule, startDate, endDate, maximumCount, run::add);
+                    run.sort(BY_START_TIME);
+                    return run;
+                })
+                .toList()
+            ).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while expanding schedules", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Failed to expand schedules: " + cause.getMessage(), cause);
+        }
+        
+        // k-way merge: heap of [run index, position in run]
+        int total = 0;
+        PriorityQueue<int[]> heads = new PriorityQueue<>((a, b) -> {
+            int byTime = BY_START_TIME.compare(runs.get(a[0]).get(a[1]), runs.get(b[0]).get(b[1]));
+            return byTime != 0 ? byTime : Integer.compare(a[0], b[0]);
+        });
+        for (int i = 0; i < runs.size(); i++) {
+            total += runs.get(i).size();
+            if (!runs.get(i).isEmpty()) {
+                heads.add(new int[] {i, 0});
+            }
+        }
+        List<ClassEvent> events = new ArrayList<>(total);
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<ClassEvent> run = runs.get(head[0]);
+            events.add(run.get(head[1]));
+            if (++head[1] < run.size()) {
+                heads.add(head);
+            }
+        }
+        return events;
+    }
+    
+    private void expandOne(ExpansionPlan plan,
+                           Schedule schedule,
+                           LocalDate startDate,
+                           LocalDate endDate,
+                           Integer maximumCount,
+                           Consumer<ClassEvent> sink) {
+        Course course = plan.coursesMap.get(schedule.getCourseId());
+        if (course == null) {
+            return;
+        }
+        
+        calculateScheduleEvents(
+            schedule, 
+            course,
+            plan.schedulesPerCourse.getOrDefault(schedule.getCourseId(), 1),
+            startDate, 
+            endDate, 
+            maximumCount,
+            plan.courseInactiveDateMap.get(schedule.getCourseId()),
+            plan.overridesFor(schedule),
+            sink
+        );
+    }
+    
+    /**
+     * Rough number of occurrences the plan produces in the range, used only to pick the parallel
+     * path: each schedule's cadence (daily, weekly or monthly) over the part of the range between
+     * its own start date and the enrollment's inactive date, capped by its remaining session
+     * budget and by maximumCount.
+     */
+    private long estimateOccurrences(ExpansionPlan plan, LocalDate startDate, LocalDate endDate, Integer maximumCount) {
+        long total = 0;
+        for (Schedule schedule : plan.schedules) {
+            Course course = plan.coursesMap.get(schedule.getCourseId());
+            if (course == null || course.getTotalSessions() == null) {
+                continue;
+            }
+            LocalDate from = schedule.getStartDate().isAfter(startDate) ? schedule.getStartDate() : startDate;
+            LocalDate to = endDate;
+            LocalDate inactiveDate = plan.courseInactiveDateMap.get(schedule.getCourseId());
+            if (inactiveDate != null && inactiveDate.isBefore(to)) {
+                to = inactiveDate;
+            }
+            long days = ChronoUnit.DAYS.between(from, to) + 1;
+            if (days <= 0) {
+                continue;
+            }
+            
+            String rule = schedule.getRecurrenceRule() != null ? schedule.getRecurrenceRule().toUpperCase() : "";
+            long perSchedule;
+            if (rule.contains("DAILY")) {
+                perSchedule = days;
+            } else if (rule.contains("MONTHLY")) {
+                perSchedule = days / 28 + 1;
+            } else {
+                perSchedule = days / 7 + 1;
+            }
+            
+            int sessionsPerSchedule = course.getTotalSessions() / plan.schedulesPerCourse.getOrDefault(schedule.getCourseId(), 1);
+            long remaining = Math.max(0, sessionsPerSchedule - countSessionsOccurred(schedule, schedule.getStartDate(), from));
+            perSchedule = Math.min(perSchedule, remaining);
+            total += maximumCount != null ? Math.min(perSchedule, maximumCount) : perSchedule;
+        }
+        return total;
+    }
+    
+    private void writeJson(JsonGenerator generator, Object value) {
+        try {
+            generator.writeObject(value);
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+    
+    private void flush(JsonGenerator generator) {
+        try {
+            generator.flush();
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Load everything the expansion needs for a student (courses, schedules, exceptions,
+     * institution closures, enrollment status). Returns null when the student has no enrollments.
+     */
+    private ExpansionPlan loadExpansionPlan(String studentIdStr) {
+        // Validate student exists
+        UUID studentId = UUID.fromString(studentIdStr);
+        Student student = studentRepository.findById(studentId)
+            .orElseThrow(() -> new RuntimeException("Student not found with ID: " + studentIdStr));
+        
+        System.out.println("✅ Student validated: " + student.getName());
+        
+        // Step 1: Find all enrollments for this student
+        List<Enrollment> enrollments = enrollmentRepository.findByStudentId(studentId);
+        
+        if (enrollments.isEmpty()) {
+            System.out.println("⚠️ No enrollments found for student");
+            return null;
+        }
+        
+        System.out.println("✅ Found " + enrollments.size() + " enrollment(s)");
+        
+        Set<UUID> courseIds = new HashSet<>();
+        for (Enrollment enrollment : enrollments) {
+            courseIds.add(enrollment.getCourseId());
+        }
+        
+        List<Course> courses = courseRepository.findAllById(courseIds);
+        List<Schedule> schedules = scheduleRepository.findByCourseIdIn(courseIds);
+        System.out.println("✅ Found " + courses.size() + " course(s) (active + inactive), " + schedules.size() + " schedule(s)");
+        
+        Set<UUID> scheduleIds = new HashSet<>();
+        for (Schedule schedule : schedules) {
+            scheduleIds.add(schedule.getId());
+        }
+        List<ScheduleException> exceptions = scheduleIds.isEmpty()
+            ? Collections.emptyList()
+            : scheduleExceptionRepository.findByScheduleIdIn(scheduleIds);
+        
+        Set<UUID> institutionIds = new HashSet<>();
+        for (Course course : courses) {
+            if (course.getInstitutionId() != null) {
+                institutionIds.add(course.getInstitutionId());
+            }
+        }
+        List<InstitutionClosure> closures = institutionIds.isEmpty()
+            ? Collections.emptyList()
+            : institutionClosureRepository.findByInstitutionIdIn(institutionIds);
+        
+        ExpansionPlan plan = buildExpansionPlan(enrollments, courses, schedules, exceptions, closures);
+        System.out.println("📊 Schedules per course: " + plan.schedulesPerCourse);
+        return plan;
+    }
+    
+    /**
+     * Assemble a plan from rows that are already loaded. Shared by the per-student endpoints and
+     * the parent dashboard, which loads rows for all children in one batch; rows belonging to
+     * courses the enrollments do not reference are ignored.
+     */
+    ExpansionPlan buildExpansionPlan(List<Enrollment> enrollments,
+                                     Collection<Course> courses,
+                                     Collection<Schedule> schedules,
+                                     Collection<ScheduleException> exceptions,
+                                     Collection<InstitutionClosure> closures) {
+        ExpansionPlan plan = new ExpansionPlan();
+        
+        // Track status/inactive dates per course
+        for (Enrollment enrollment : enrollments) {
+            UUID courseId = enrollment.getCourseId();
+            String status = enrollment.getStatus() != null ? enrollment.getStatus() : "active";
+            
+            if ("active".equalsIgnoreCase(status)) {
+                plan.courseStatusMap.put(courseId, "active");
+                plan.courseInactiveDateMap.remove(courseId);
+            } else {
+                plan.courseStatusMap.putIfAbsent(courseId, status);
+                LocalDate deactivatedDate = enrollment.getDeactivatedAt() != null
+                    ? enrollment.getDeactivatedAt().toLocalDate()
+                    : LocalDate.now();
+                LocalDate currentInactive = plan.courseInactiveDateMap.get(courseId);
+                if (currentInactive == null || deactivatedDate.isBefore(currentInactive)) {
+                    plan.courseInactiveDateMap.put(courseId, deactivatedDate);
+                }
+            }
+        }
+        
+        for (Course course : courses) {
+            if (plan.courseStatusMap.containsKey(course.getId())) {
+                plan.courses.add(course);
+                plan.coursesMap.put(course.getId(), course);
+            }
+        }
+        
+        Set<UUID> scheduleIds = new HashSet<>();
+        for (Schedule schedule : schedules) {
+            if (plan.courseStatusMap.containsKey(schedule.getCourseId())) {
+                plan.schedules.add(schedule);
+                scheduleIds.add(schedule.getId());
+            }
+        }
+        
+        for (ScheduleException exception : exceptions) {
+            if (!scheduleIds.contains(exception.getScheduleId())) {
+                continue;
+            }
+            String key = buildExceptionKey(exception.getOriginalDate(), exception.getOriginalStartTime());
+            plan.exceptionMapsBySchedule
+                .computeIfAbsent(exception.getScheduleId(), id -> new HashMap<>())
+                .put(key, exception);
+        }
+        
+        plan.closuresByInstitution.putAll(ClosureCalendar.byInstitution(closures));
+        
+        // Count schedules per course (to divide totalSessions among schedules)
+        for (Schedule schedule : plan.schedules) {
+            UUID courseId = schedule.getCourseId();
+            plan.schedulesPerCourse.put(courseId, plan.schedulesPerCourse.getOrDefault(courseId, 0) + 1);
+        }
+        
+        return plan;
+    }
+    
+    private List<CourseInfo> buildCourseList(ExpansionPlan plan) {
+        List<CourseInfo> coursesList = new ArrayList<>(plan.courses.size());
+        for (Course course : plan.courses) {
+            coursesList.add(new CourseInfo(
+                course.getId(),
+                course.getName(),
+                course.getTeacherName(),
+                course.getLocation(),
+                course.getDescription(),
+                plan.courseStatusMap.getOrDefault(course.getId(), "active"),
+                plan.courseInactiveDateMap.get(course.getId())
+            ));
+        }
+        return coursesList;
+    }
+    
     /**
      * Calculate schedule events based on recurrence rules
      */
-    private List<Map<String, Object>> calculateScheduleEvents(Schedule schedule,
-                                                                Course course,
-                                                                int numberOfSchedulesForCourse,
-                                                                LocalDate startDate,
-                                                                LocalDate endDate,
-                                                                Integer maximumCount,
-                                                                LocalDate inactiveDate,
-                                                                Map<String, ScheduleException> exceptionMap) {
-        List<Map<String, Object>> events = new ArrayList<>();
+    private void calculateScheduleEvents(Schedule schedule,
+                                         Course course,
+                                         int numberOfSchedulesForCourse,
+                                         LocalDate startDate,
+                                         LocalDate endDate,
+                                         Integer maximumCount,
+                                         LocalDate inactiveDate,
+                                         OccurrenceOverrides overrides,
+                                         Consumer<ClassEvent> sink) {
+        int effectiveMaxCount = resolveOccurrenceLimit(schedule, course, numberOfSchedulesForCourse,
+                                                       startDate, maximumCount, inactiveDate);
+        if (effectiveMaxCount < 0) {
+            return;
+        }
         
+        // Use effective start date (max of schedule start and requested start)
+        LocalDate effectiveStartDate = schedule.getStartDate().isAfter(startDate) ? schedule.getStartDate() : startDate;
+        expandSchedule(schedule, effectiveStartDate, endDate, effectiveMaxCount, inactiveDate, overrides, sink);
+    }
+    
+    /**
+     * How many occurrences this schedule may still produce from startDate on, or -1 if the
+     * enrollment became inactive before the range starts.
+     */
+    private int resolveOccurrenceLimit(Schedule schedule,
+                                       Course course,
+                                       int numberOfSchedulesForCourse,
+                                       LocalDate startDate,
+                                       Integer maximumCount,
+                                       LocalDate inactiveDate) {
         LocalDate scheduleStartDate = schedule.getStartDate();
-        LocalTime startTime = schedule.getStartTime();
-        Long durationMinutes = schedule.getDurationMinutes();
-        String recurrenceRule = schedule.getRecurrenceRule();
-        String dayOfWeekStr = schedule.getDayOfWeek();
-        UUID courseId = schedule.getCourseId();
         
         // Use effective start date (max of schedule start and requested start)
         LocalDate effectiveStartDate = scheduleStartDate.isAfter(startDate) ? scheduleStartDate : startDate;
         
         // If enrollment is inactive before the effective start date, skip entirely
         if (inactiveDate != null && inactiveDate.isBefore(effectiveStartDate)) {
-            System.out.println("ℹ️ Course is inactive before requested date range; skipping schedule events");
-            return events;
+            return -1;
         }
         
         // Calculate sessions per schedule: divide totalSessions by number of schedules for this course
@@ -247,41 +1118,110 @@ public class ClassScheduleService {
         int countOfCoursesLeft = Math.max(0, sessionsPerSchedule - sessionsAlreadyOccurred);
         
         // Calculate effective maximum count: min(maximumCount, remainingSessions)
-        Integer effectiveMaxCount = maximumCount;
-        if (effectiveMaxCount != null) {
-            effectiveMaxCount = Math.min(maximumCount, countOfCoursesLeft);
-        } else {
-            effectiveMaxCount = countOfCoursesLeft;
-        }
+        int effectiveMaxCount = maximumCount != null ? Math.min(maximumCount, countOfCoursesLeft) : countOfCoursesLeft;
         
-        System.out.println("📊 Course: " + course.getName() + ", Total Sessions: " + totalSessions + 
-                          ", Number of Schedules: " + numberOfSchedulesForCourse +
-                          ", Sessions per Schedule: " + sessionsPerSchedule +
-                          ", Already Occurred (this schedule): " + sessionsAlreadyOccurred + 
-                          ", Remaining (this schedule): " + countOfCoursesLeft + 
-                          ", Effective Max Count: " + effectiveMaxCount +
-                          (inactiveDate != null ? ", Inactive Date: " + inactiveDate : ""));
+        return effectiveMaxCount;
+    }
+    
+    /**
+     * Expand one schedule between two dates, passing events to the sink.
+     * @return number of occurrences consumed (cancelled occurrences included)
+     */
+    private int expandSchedule(Schedule schedule,
+                               LocalDate fromDate,
+                               LocalDate endDate,
+                               Integer maxCount,
+                               LocalDate inactiveDate,
+                               OccurrenceOverrides overrides,
+                               Consumer<ClassEvent> sink) {
+        LocalDate scheduleStartDate = schedule.getStartDate();
+        LocalTime startTime = schedule.getStartTime();
+        Long durationMinutes = schedule.getDurationMinutes();
+        String recurrenceRule = schedule.getRecurrenceRule();
+        String dayOfWeekStr = schedule.getDayOfWeek();
+        UUID courseId = schedule.getCourseId();
         
         // Parse recurrence rule or use dayOfWeek
         if (recurrenceRule != null && !recurrenceRule.isEmpty()) {
             // Try to parse RRULE format
             if (recurrenceRule.toUpperCase().startsWith("FREQ=")) {
-                events.addAll(parseRRULE(recurrenceRule, scheduleStartDate, startTime, durationMinutes, 
-                                       courseId, effectiveStartDate, endDate, effectiveMaxCount, inactiveDate, exceptionMap, schedule.getId()));
+                return parseRRULE(recurrenceRule, scheduleStartDate, startTime, durationMinutes, 
+                                  courseId, fromDate, endDate, maxCount, inactiveDate, overrides, schedule.getId(), sink);
             } else {
                 // Fall back to simple recurrence patterns
-                events.addAll(parseSimpleRecurrence(recurrenceRule, scheduleStartDate, startTime, 
-                                                   durationMinutes, courseId, effectiveStartDate, 
-                                                   endDate, effectiveMaxCount, dayOfWeekStr, inactiveDate, exceptionMap, schedule.getId()));
+                return parseSimpleRecurrence(recurrenceRule, scheduleStartDate, startTime, 
+                                             durationMinutes, courseId, fromDate, 
+                                             endDate, maxCount, dayOfWeekStr, inactiveDate, overrides, schedule.getId(), sink);
             }
         } else {
             // Use dayOfWeek for weekly recurrence
-            events.addAll(calculateWeeklyEvents(dayOfWeekStr, scheduleStartDate, startTime, 
-                                              durationMinutes, courseId, schedule.getId(), effectiveStartDate, 
-                                              endDate, effectiveMaxCount, inactiveDate, exceptionMap));
+            return calculateWeeklyEvents(dayOfWeekStr, scheduleStartDate, startTime, 
+                                         durationMinutes, courseId, schedule.getId(), fromDate, 
+                                         endDate, maxCount, inactiveDate, overrides, sink);
         }
+    }
+    
+    /**
+     * What can change a single occurrence of a schedule: its exceptions keyed by original
+     * date|start time, and the closure calendar of the course's institution.
+     */
+    record OccurrenceOverrides(Map<String, ScheduleException> exceptions, ClosureCalendar closures) {}
+    
+    /**
+     * Everything needed to expand a student's schedules, loaded up front so that the
+     * expansion itself never touches the database.
+     */
+    static class ExpansionPlan {
+        final List<Course> courses = new ArrayList<>();
+        final Map<UUID, Course> coursesMap = new HashMap<>();
+        final Map<UUID, String> courseStatusMap = new HashMap<>();
+        final Map<UUID, LocalDate> courseInactiveDateMap = new HashMap<>();
+        final List<Schedule> schedules = new ArrayList<>();
+        final Map<UUID, Map<String, ScheduleException>> exceptionMapsBySchedule = new HashMap<>();
+        final Map<UUID, Integer> schedulesPerCourse = new HashMap<>();
         
-        return events;
+        final Map<UUID, ClosureCalendar> closuresByInstitution = new HashMap<>();
+        
+        OccurrenceOverrides overridesFor(Schedule schedule) {
+            Course course = coursesMap.get(schedule.getCourseId());
+            ClosureCalendar closures = course != null && course.getInstitutionId() != null
+                ? closuresByInstitution.getOrDefault(course.getInstitutionId(), ClosureCalendar.EMPTY)
+                : ClosureCalendar.EMPTY;
+            return new OccurrenceOverrides(
+                exceptionMapsBySchedule.getOrDefault(schedule.getId(), Collections.emptyMap()),
+                closures
+            );
+        }
+        
+        /**
+         * Largest number of days any exception moves an occurrence later than its original date.
+         */
+        long maxForwardShiftDays() {
+            long max = 0;
+            for (Map<String, ScheduleException> exceptions : exceptionMapsBySchedule.values()) {
+                for (ScheduleException exception : exceptions.values()) {
+                    if (exception.getNewDate() != null && exception.getOriginalDate() != null) {
+                        max = Math.max(max, ChronoUnit.DAYS.between(exception.getOriginalDate(), exception.getNewDate()));
+                    }
+                }
+            }
+            return max;
+        }
+        
+        /**
+         * Largest number of days any exception moves an occurrence earlier than its original date.
+         */
+        long maxBackwardShiftDays() {
+            long max = 0;
+            for (Map<String, ScheduleException> exceptions : exceptionMapsBySchedule.values()) {
+                for (ScheduleException exception : exceptions.values()) {
+                    if (exception.getNewDate() != null && exception.getOriginalDate() != null) {
+                        max = Math.max(max, ChronoUnit.DAYS.between(exception.getNewDate(), exception.getOriginalDate()));
+                    }
+                }
+            }
+            return max;
+        }
     }
     
     /**
@@ -333,7 +1273,7 @@ public class ClassScheduleService {
         
         switch (freq) {
             case "DAILY":
-                return (int) java.time.temporal.ChronoUnit.DAYS.between(scheduleStartDate, currentDate);
+                return (int) ChronoUnit.DAYS.between(scheduleStartDate, currentDate);
             case "WEEKLY":
                 DayOfWeek targetDay = parseDayOfWeekString(byDay);
                 if (targetDay == null) {
@@ -343,15 +1283,7 @@ public class ClassScheduleService {
                     }
                 }
                 // Count sessions that occurred strictly before currentDate
-                int weeks = 0;
-                LocalDate weeklyDate = scheduleStartDate;
-                while (weeklyDate.isBefore(currentDate)) {
-                    if (weeklyDate.getDayOfWeek() == targetDay) {
-                        weeks++;
-                    }
-                    weeklyDate = weeklyDate.plusDays(1);
-                }
-                return weeks;
+                return countWeekdaysBefore(targetDay, scheduleStartDate, currentDate);
             case "MONTHLY":
                 if (byMonthDay != null) {
                     // Count sessions that occurred strictly before currentDate
@@ -390,11 +1322,11 @@ public class ClassScheduleService {
     private int countSessionsOccurredSimple(String recurrence, LocalDate scheduleStartDate, LocalDate currentDate, String dayOfWeekStr) {
         switch (recurrence.toLowerCase()) {
             case "daily":
-                return (int) java.time.temporal.ChronoUnit.DAYS.between(scheduleStartDate, currentDate);
+                return (int) ChronoUnit.DAYS.between(scheduleStartDate, currentDate);
             case "weekly":
                 return countSessionsOccurredWeekly(dayOfWeekStr, scheduleStartDate, currentDate);
             case "monthly":
-                return (int) java.time.temporal.ChronoUnit.MONTHS.between(scheduleStartDate, currentDate);
+                return (int) ChronoUnit.MONTHS.between(scheduleStartDate, currentDate);
             default:
                 return countSessionsOccurredWeekly(dayOfWeekStr, scheduleStartDate, currentDate);
         }
@@ -409,22 +1341,24 @@ public class ClassScheduleService {
             targetDay = scheduleStartDate.getDayOfWeek();
         }
         
-        int count = 0;
-        LocalDate date = scheduleStartDate;
-        while (!date.isAfter(currentDate)) {
-            if (date.getDayOfWeek() == targetDay && date.isBefore(currentDate)) {
-                count++;
-            }
-            date = date.plusDays(1);
-            if (date.isAfter(currentDate)) break;
+        return countWeekdaysBefore(targetDay, scheduleStartDate, currentDate);
+    }
+    
+    /**
+     * Number of dates in [from, to) falling on the given weekday, without walking the days.
+     */
+    static int countWeekdaysBefore(DayOfWeek day, LocalDate from, LocalDate to) {
+        LocalDate first = from.with(TemporalAdjusters.nextOrSame(day));
+        if (!first.isBefore(to)) {
+            return 0;
         }
-        return count;
+        return (int) ((ChronoUnit.DAYS.between(first, to) - 1) / 7 + 1);
     }
     
     /**
      * Parse RRULE format (e.g., "FREQ=MONTHLY;BYMONTHDAY=5")
      */
-    private List<Map<String, Object>> parseRRULE(String rrule,
+    private int parseRRULE(String rrule,
                                                    LocalDate scheduleStartDate,
                                                    LocalTime startTime,
                                                    Long durationMinutes,
@@ -433,10 +1367,9 @@ public class ClassScheduleService {
                                                    LocalDate endDate,
                                                    Integer maximumCount,
                                                    LocalDate inactiveDate,
-                                                   Map<String, ScheduleException> exceptionMap,
-                                                   UUID scheduleId) {
-        List<Map<String, Object>> events = new ArrayList<>();
-        
+                                                   OccurrenceOverrides overrides,
+                                                   UUID scheduleId,
+                                                   Consumer<ClassEvent> sink) {
         // Parse RRULE components
         String[] parts = rrule.toUpperCase().split(";");
         String freq = null;
@@ -466,11 +1399,11 @@ public class ClassScheduleService {
                     if (inactiveDate != null && currentDate.isAfter(inactiveDate)) {
                         break;
                     }
-                    Map<String, Object> overrideEvent = applyExceptionIfPresent(courseId, scheduleId, currentDate, startTime, durationMinutes, exceptionMap);
+                    ClassEvent overrideEvent = applyExceptionIfPresent(courseId, scheduleId, currentDate, startTime, durationMinutes, overrides);
                     if (overrideEvent == null) {
-                        events.add(createEvent(scheduleId, courseId, currentDate, startTime, durationMinutes));
-                    } else if (!overrideEvent.isEmpty()) {
-                        events.add(overrideEvent);
+                        sink.accept(createEvent(scheduleId, courseId, currentDate, startTime, durationMinutes));
+                    } else if (overrideEvent != CANCELLED) {
+                        sink.accept(overrideEvent);
                     }
                     count++;
                     currentDate = currentDate.plusDays(1);
@@ -493,11 +1426,11 @@ public class ClassScheduleService {
                     if (inactiveDate != null && currentDate.isAfter(inactiveDate)) {
                         break;
                     }
-                    Map<String, Object> overrideEvent = applyExceptionIfPresent(courseId, scheduleId, currentDate, startTime, durationMinutes, exceptionMap);
+                    ClassEvent overrideEvent = applyExceptionIfPresent(courseId, scheduleId, currentDate, startTime, durationMinutes, overrides);
                     if (overrideEvent == null) {
-                        events.add(createEvent(scheduleId, courseId, currentDate, startTime, durationMinutes));
-                    } else if (!overrideEvent.isEmpty()) {
-                        events.add(overrideEvent);
+                        sink.accept(createEvent(scheduleId, courseId, currentDate, startTime, durationMinutes));
+                    } else if (overrideEvent != CANCELLED) {
+                        sink.accept(overrideEvent);
                     }
                     count++;
                     currentDate = currentDate.plusWeeks(1);
@@ -520,11 +1453,11 @@ public class ClassScheduleService {
                         if (inactiveDate != null && currentDate.isAfter(inactiveDate)) {
                             break;
                         }
-                        Map<String, Object> overrideEvent = applyExceptionIfPresent(courseId, scheduleId, currentDate, startTime, durationMinutes, exceptionMap);
+                        ClassEvent overrideEvent = applyExceptionIfPresent(courseId, scheduleId, currentDate, startTime, durationMinutes, overrides);
                         if (overrideEvent == null) {
-                            events.add(createEvent(scheduleId, courseId, currentDate, startTime, durationMinutes));
-                        } else if (!overrideEvent.isEmpty()) {
-                            events.add(overrideEvent);
+                            sink.accept(createEvent(scheduleId, courseId, currentDate, startTime, durationMinutes));
+                        } else if (overrideEvent != CANCELLED) {
+                            sink.accept(overrideEvent);
                         }
                         count++;
                         currentDate = currentDate.plusMonths(1);
@@ -559,11 +1492,11 @@ public class ClassScheduleService {
                         if (inactiveDate != null && currentDate.isAfter(inactiveDate)) {
                             break;
                         }
-                        Map<String, Object> overrideEvent = applyExceptionIfPresent(courseId, scheduleId, currentDate, startTime, durationMinutes, exceptionMap);
+                        ClassEvent overrideEvent = applyExceptionIfPresent(courseId, scheduleId, currentDate, startTime, durationMinutes, overrides);
                         if (overrideEvent == null) {
-                            events.add(createEvent(scheduleId, courseId, currentDate, startTime, durationMinutes));
-                        } else if (!overrideEvent.isEmpty()) {
-                            events.add(overrideEvent);
+                            sink.accept(createEvent(scheduleId, courseId, currentDate, startTime, durationMinutes));
+                        } else if (overrideEvent != CANCELLED) {
+                            sink.accept(overrideEvent);
                         }
                         count++;
                         currentDate = currentDate.plusMonths(1);
@@ -578,18 +1511,18 @@ public class ClassScheduleService {
                 
             default:
                 // Default to weekly
-                events.addAll(calculateWeeklyEvents(scheduleStartDate.getDayOfWeek().toString(), 
-                                                   scheduleStartDate, startTime, durationMinutes, 
-                                                   courseId, scheduleId, startDate, endDate, maximumCount, inactiveDate, exceptionMap));
+                count = calculateWeeklyEvents(scheduleStartDate.getDayOfWeek().toString(), 
+                                              scheduleStartDate, startTime, durationMinutes, 
+                                              courseId, scheduleId, startDate, endDate, maximumCount, inactiveDate, overrides, sink);
         }
         
-        return events;
+        return count;
     }
     
     /**
      * Parse simple recurrence patterns (e.g., "weekly", "monthly")
      */
-    private List<Map<String, Object>> parseSimpleRecurrence(String recurrence,
+    private int parseSimpleRecurrence(String recurrence,
                                                               LocalDate scheduleStartDate,
                                                               LocalTime startTime,
                                                               Long durationMinutes,
@@ -599,20 +1532,21 @@ public class ClassScheduleService {
                                                               Integer maximumCount,
                                                               String dayOfWeekStr,
                                                               LocalDate inactiveDate,
-                                                              Map<String, ScheduleException> exceptionMap,
-                                                              UUID scheduleId) {
-        List<Map<String, Object>> events = new ArrayList<>();
+                                                              OccurrenceOverrides overrides,
+                                                              UUID scheduleId,
+                                                              Consumer<ClassEvent> sink) {
+        int occurrences = 0;
         
         switch (recurrence.toLowerCase()) {
             case "weekly":
-                events.addAll(calculateWeeklyEvents(dayOfWeekStr, scheduleStartDate, startTime, 
-                                                  durationMinutes, courseId, scheduleId, startDate, endDate, maximumCount, inactiveDate, exceptionMap));
+                occurrences = calculateWeeklyEvents(dayOfWeekStr, scheduleStartDate, startTime, 
+                                                    durationMinutes, courseId, scheduleId, startDate, endDate, maximumCount, inactiveDate, overrides, sink);
                 break;
             case "monthly":
                 // Monthly on the same day
                 LocalDate currentDate = scheduleStartDate.isBefore(startDate) ? 
                                        LocalDate.of(startDate.getYear(), startDate.getMonth(), 
-                                                   scheduleStartDate.getDayOfMonth()) : scheduleStartDate;
+                                                   Math.min(scheduleStartDate.getDayOfMonth(), startDate.lengthOfMonth())) : scheduleStartDate;
                 if (currentDate.isBefore(startDate)) {
                     currentDate = currentDate.plusMonths(1);
                 }
@@ -621,11 +1555,11 @@ public class ClassScheduleService {
                     if (inactiveDate != null && currentDate.isAfter(inactiveDate)) {
                         break;
                     }
-                    Map<String, Object> overrideEvent = applyExceptionIfPresent(courseId, scheduleId, currentDate, startTime, durationMinutes, exceptionMap);
+                    ClassEvent overrideEvent = applyExceptionIfPresent(courseId, scheduleId, currentDate, startTime, durationMinutes, overrides);
                     if (overrideEvent == null) {
-                        events.add(createEvent(scheduleId, courseId, currentDate, startTime, durationMinutes));
-                    } else if (!overrideEvent.isEmpty()) {
-                        events.add(overrideEvent);
+                        sink.accept(createEvent(scheduleId, courseId, currentDate, startTime, durationMinutes));
+                    } else if (overrideEvent != CANCELLED) {
+                        sink.accept(overrideEvent);
                     }
                     count++;
                     currentDate = currentDate.plusMonths(1);
@@ -634,6 +1568,7 @@ public class ClassScheduleService {
                                                   currentDate.lengthOfMonth());
                     }
                 }
+                occurrences = count;
                 break;
             case "daily":
                 LocalDate dailyDate = scheduleStartDate.isBefore(startDate) ? startDate : scheduleStartDate;
@@ -642,29 +1577,30 @@ public class ClassScheduleService {
                     if (inactiveDate != null && dailyDate.isAfter(inactiveDate)) {
                         break;
                     }
-                    Map<String, Object> overrideEvent = applyExceptionIfPresent(courseId, scheduleId, dailyDate, startTime, durationMinutes, exceptionMap);
+                    ClassEvent overrideEvent = applyExceptionIfPresent(courseId, scheduleId, dailyDate, startTime, durationMinutes, overrides);
                     if (overrideEvent == null) {
-                        events.add(createEvent(scheduleId, courseId, dailyDate, startTime, durationMinutes));
-                    } else if (!overrideEvent.isEmpty()) {
-                        events.add(overrideEvent);
+                        sink.accept(createEvent(scheduleId, courseId, dailyDate, startTime, durationMinutes));
+                    } else if (overrideEvent != CANCELLED) {
+                        sink.accept(overrideEvent);
                     }
                     dailyCount++;
                     dailyDate = dailyDate.plusDays(1);
                 }
+                occurrences = dailyCount;
                 break;
             default:
                 // Default to weekly
-                events.addAll(calculateWeeklyEvents(dayOfWeekStr, scheduleStartDate, startTime, 
-                                                  durationMinutes, courseId, scheduleId, startDate, endDate, maximumCount, inactiveDate, exceptionMap));
+                occurrences = calculateWeeklyEvents(dayOfWeekStr, scheduleStartDate, startTime, 
+                                                    durationMinutes, courseId, scheduleId, startDate, endDate, maximumCount, inactiveDate, overrides, sink);
         }
         
-        return events;
+        return occurrences;
     }
     
     /**
      * Calculate weekly recurring events
      */
-    private List<Map<String, Object>> calculateWeeklyEvents(String dayOfWeekStr,
+    private int calculateWeeklyEvents(String dayOfWeekStr,
                                                               LocalDate scheduleStartDate,
                                                               LocalTime startTime,
                                                               Long durationMinutes,
@@ -674,9 +1610,8 @@ public class ClassScheduleService {
                                                               LocalDate endDate,
                                                               Integer maximumCount,
                                                               LocalDate inactiveDate,
-                                                              Map<String, ScheduleException> exceptionMap) {
-        List<Map<String, Object>> events = new ArrayList<>();
-        
+                                                              OccurrenceOverrides overrides,
+                                                              Consumer<ClassEvent> sink) {
         DayOfWeek targetDay = parseDayOfWeek(dayOfWeekStr);
         if (targetDay == null) {
             targetDay = scheduleStartDate.getDayOfWeek();
@@ -701,40 +1636,39 @@ public class ClassScheduleService {
             if (inactiveDate != null && currentDate.isAfter(inactiveDate)) {
                 break;
             }
-            Map<String, Object> overrideEvent = applyExceptionIfPresent(courseId, scheduleId, currentDate, startTime, durationMinutes, exceptionMap);
+            ClassEvent overrideEvent = applyExceptionIfPresent(courseId, scheduleId, currentDate, startTime, durationMinutes, overrides);
             if (overrideEvent == null) {
-                events.add(createEvent(scheduleId, courseId, currentDate, startTime, durationMinutes));
-            } else if (!overrideEvent.isEmpty()) {
-                events.add(overrideEvent);
+                sink.accept(createEvent(scheduleId, courseId, currentDate, startTime, durationMinutes));
+            } else if (overrideEvent != CANCELLED) {
+                sink.accept(overrideEvent);
             }
             count++;
             currentDate = currentDate.plusWeeks(1);
         }
         
-        return events;
+        return count;
     }
     
     /**
-     * Create an event map
+     * Create an event
      */
-    private Map<String, Object> createEvent(UUID scheduleId, UUID courseId, LocalDate date, LocalTime startTime, Long durationMinutes) {
+    private ClassEvent createEvent(UUID scheduleId, UUID courseId, LocalDate date, LocalTime startTime, Long durationMinutes) {
         LocalDateTime startDateTime = LocalDateTime.of(date, startTime);
         LocalDateTime endDateTime = startDateTime.plusMinutes(durationMinutes);
         
-        Map<String, Object> event = new HashMap<>();
-        event.put("scheduleId", scheduleId.toString());
-        event.put("courseId", courseId.toString());
-        event.put("startTime", startDateTime.atOffset(ZoneOffset.UTC).toString());
-        event.put("endTime", endDateTime.atOffset(ZoneOffset.UTC).toString());
-        event.put("durationMinutes", durationMinutes.intValue());
-        
-        return event;
+        return new ClassEvent(
+            scheduleId,
+            courseId,
+            startDateTime.atOffset(ZoneOffset.UTC),
+            endDateTime.atOffset(ZoneOffset.UTC),
+            durationMinutes.intValue()
+        );
     }
     
     /**
      * Parse day of week string to DayOfWeek enum
      */
-    private DayOfWeek parseDayOfWeek(String dayOfWeek) {
+    static DayOfWeek parseDayOfWeek(String dayOfWeek) {
         if (dayOfWeek == null) {
             return null;
         }
@@ -772,7 +1706,7 @@ public class ClassScheduleService {
     /**
      * Parse day of week from RRULE BYDAY format (e.g., "MO", "TU")
      */
-    private DayOfWeek parseDayOfWeekString(String byDay) {
+    static DayOfWeek parseDayOfWeekString(String byDay) {
         if (byDay == null || byDay.isEmpty()) {
             return null;
         }
@@ -808,37 +1742,39 @@ public class ClassScheduleService {
     /**
      * Build empty response
      */
-    private Map<String, Object> buildEmptyResponse() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("courses", new ArrayList<>());
-        response.put("events", new ArrayList<>());
-        return response;
+    private ClassScheduleResponse buildEmptyResponse() {
+        return new ClassScheduleResponse(new ArrayList<>(), new ArrayList<>());
     }
-
-    private Map<String, Object> applyExceptionIfPresent(UUID courseId,
-                                                         UUID scheduleId,
-                                                         LocalDate originalDate,
-                                                         LocalTime originalStartTime,
-                                                         Long durationMinutes,
-                                                         Map<String, ScheduleException> exceptionMap) {
+    
+    ClassEvent applyExceptionIfPresent(UUID courseId,
+                                       UUID scheduleId,
+                                       LocalDate originalDate,
+                                       LocalTime originalStartTime,
+                                       Long durationMinutes,
+                                       OccurrenceOverrides overrides) {
         String key = buildExceptionKey(originalDate, originalStartTime);
-        ScheduleException exception = exceptionMap.get(key);
+        ScheduleException exception = overrides.exceptions().get(key);
         if (exception == null) {
-            return null;
+            return overrides.closures().isClosed(originalDate) ? CANCELLED : null;
         }
         
         if (Boolean.TRUE.equals(exception.getIsCancelled())) {
-            return Collections.emptyMap();
+            return CANCELLED;
         }
         
+        // Closures apply to the date the occurrence actually lands on: a time-only change on a
+        // closed day stays cancelled, and an occurrence moved onto a closed day is cancelled too
         LocalDate eventDate = exception.getNewDate() != null ? exception.getNewDate() : originalDate;
+        if (overrides.closures().isClosed(eventDate)) {
+            return CANCELLED;
+        }
         LocalTime eventStart = exception.getNewStartTime() != null ? exception.getNewStartTime() : originalStartTime;
         Long eventDuration = exception.getNewDurationMinutes() != null ? exception.getNewDurationMinutes() : durationMinutes;
         
         return createEvent(scheduleId, courseId, eventDate, eventStart, eventDuration);
     }
     
-    private String buildExceptionKey(LocalDate date, LocalTime time) {
+    static String buildExceptionKey(LocalDate date, LocalTime time) {
         return date.toString() + "|" + time.toString();
     }
 }
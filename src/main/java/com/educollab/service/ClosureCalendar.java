@@ -0,0 +1,49 @@
+package com.educollab.service;
+
+import com.educollab.model.InstitutionClosure;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Closed days of one institution as one BitSet per year, bit n = day-of-year n + 1. The
+ * expansion asks isClosed once per occurrence: a map lookup and a bit test.
+ */
+final class ClosureCalendar {
+    
+    static final ClosureCalendar EMPTY = new ClosureCalendar(Collections.emptyMap());
+    
+    private final Map<Integer, BitSet> closedDaysByYear;
+    
+    private ClosureCalendar(Map<Integer, BitSet> closedDaysByYear) {
+        this.closedDaysByYear = closedDaysByYear;
+    }
+    
+    /**
+     * One calendar per institution from its closure rows.
+     */
+    static Map<UUID, ClosureCalendar> byInstitution(Collection<InstitutionClosure> closures) {
+        Map<UUID, Map<Integer, BitSet>> years = new HashMap<>();
+        for (InstitutionClosure closure : closures) {
+            if (closure.getStartDate() == null) {
+                continue;
+            }
+            LocalDate end = closure.getEndDate() != null ? closure.getEndDate() : closure.getStartDate();
+            Map<Integer, BitSet> institutionYears = years.computeIfAbsent(closure.getInstitutionId(), id -> new HashMap<>());
+            for (LocalDate date = closure.getStartDate(); !date.isAfter(end); date = date.plusDays(1)) {
+                institutionYears.computeIfAbsent(date.getYear(), year -> new BitSet(366)).set(date.getDayOfYear() - 1);
+            }
+        }
+        
+        Map<UUID, ClosureCalendar> calendars = new HashMap<>();
+        for (Map.Entry<UUID, Map<Integer, BitSet>> entry : years.entrySet()) {
+            calendars.put(entry.getKey(), new ClosureCalendar(entry.getValue()));
+        }
+        return calendars;
+    }
+    
+    boolean isClosed(LocalDate date) {
+        BitSet closedDays = closedDaysByYear.get(date.getYear());
+        return closedDays != null && closedDays.get(date.getDayOfYear() - 1);
+    }
+}
@@ -1,5 +1,8 @@
 package com.educollab.service;
 
+import com.educollab.dto.CreateCourseRequest;
+import com.educollab.dto.CreateCourseRequest.ScheduleEntry;
+import com.educollab.dto.ScheduleConflict;
 import com.educollab.model.Course;
 import com.educollab.model.Enrollment;
 import com.educollab.model.Schedule;
@@ -39,8 +42,20 @@ public class CourseService {
     @Autowired
     private EnrollmentRepository enrollmentRepository;
     
+    @Autowired
+    private DataVersionService dataVersionService;
+    
+    @Autowired
+    private BookingIndex bookingIndex;
+    
+    @Autowired
+    private StudentTimetableCache studentTimetableCache;
+    
+    @Autowired
+    private ClassOccurrenceProjection classOccurrenceProjection;
+    
     @Transactional(rollbackFor = Exception.class)
-    public Map<String, Object> createCourse(Map<String, Object> request) {
+    public Map<String, Object> createCourse(CreateCourseRequest request) {
         try {
             System.out.println("========================================");
             System.out.println("📚 Creating new course:");
@@ -48,22 +63,25 @@ public class CourseService {
             System.out.println("========================================");
             
             // Extract course details
-            String courseName = (String) request.get("courseName");
-            String teacherName = (String) request.get("teacherName");
-            String location = (String) request.get("location");
-            Integer totalSessions = ((Number) request.get("totalSessions")).intValue();
-            String courseStartDateStr = (String) request.get("courseStartDate");
+            String courseName = request.courseName();
+            String teacherName = request.teacherName();
+            String location = request.location();
+            Integer totalSessions = request.totalSessions();
+            if (totalSessions == null) {
+                throw new RuntimeException("totalSessions is required");
+            }
+            String courseStartDateStr = request.courseStartDate();
             
             // studentId is required when parent adds a course
-            String studentIdStr = (String) request.get("studentId");
+            String studentIdStr = request.studentId();
             if (studentIdStr == null || studentIdStr.isEmpty()) {
                 throw new RuntimeException("studentId is required");
             }
             UUID studentId = UUID.fromString(studentIdStr);
             
             // Optional fields
-            String description = request.get("description") != null ? (String) request.get("description") : null;
-            Integer maxStudents = request.get("maxStudents") != null ? ((Number) request.get("maxStudents")).intValue() : null;
+            String description = request.description();
+            Integer maxStudents = request.maxStudents();
             
             System.out.println("Course Name: " + courseName);
             System.out.println("Teacher Name: " + teacherName);
@@ -82,8 +100,7 @@ public class CourseService {
             System.out.println("✅ Student validated: " + student.getName() + " (ID: " + studentId + ")");
             
             // Extract schedule array
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> scheduleArray = (List<Map<String, Object>>) request.get("schedule");
+            List<ScheduleEntry> scheduleArray = request.schedule();
             
             if (scheduleArray == null || scheduleArray.isEmpty()) {
                 throw new RuntimeException("Schedule array cannot be empty");
@@ -91,6 +108,16 @@ public class CourseService {
             
             System.out.println("Number of schedule entries: " + scheduleArray.size());
             
+            // Parent courses have no institution, so their free-text teacher/location names are
+            // not checked against other families' bookings: only the student's own timetable is
+            if (!Boolean.TRUE.equals(request.allowConflicts())) {
+                List<WeeklySlot> candidates = buildCandidateSlots(totalSessions, courseStartDate, scheduleArray);
+                List<UUID> clashingCourseIds = studentTimetableCache.findClashes(studentId, candidates);
+                if (!clashingCourseIds.isEmpty()) {
+                    return buildConflictResponse(List.of(), clashingCourseIds);
+                }
+            }
+            
             // Step 1: Create Course entity
             Course course = new Course();
             course.setName(courseName);
@@ -114,10 +141,10 @@ public class CourseService {
             // Step 3: Process schedule array
             List<Schedule> schedules = new ArrayList<>();
             
-            for (Map<String, Object> scheduleEntry : scheduleArray) {
-                String dayOfWeek = (String) scheduleEntry.get("dayOfWeek");
-                String startTimeStr = (String) scheduleEntry.get("startTime");
-                String endTimeStr = (String) scheduleEntry.get("endTime");
+            for (ScheduleEntry scheduleEntry : scheduleArray) {
+                String dayOfWeek = scheduleEntry.dayOfWeek();
+                String startTimeStr = scheduleEntry.startTime();
+                String endTimeStr = scheduleEntry.endTime();
                 
                 System.out.println("Processing schedule entry:");
                 System.out.println("  Day of Week: " + dayOfWeek);
@@ -156,6 +183,8 @@ public class CourseService {
             List<Schedule> savedSchedules = scheduleRepository.saveAll(schedules);
             
             System.out.println("✅ Saved " + savedSchedules.size() + " schedule entries");
+            bookingIndex.indexAfterCommit(savedCourse, savedSchedules);
+            classOccurrenceProjection.refreshCourses(List.of(savedCourse.getId()));
             
             // Step 5: Create enrollment for student in this course
             // Check if enrollment already exists
@@ -171,6 +200,8 @@ public class CourseService {
             } else {
                 System.out.println("ℹ️ Enrollment already exists for this student and course");
             }
+            dataVersionService.bumpStudent(studentId);
+            studentTimetableCache.invalidateAfterCommit(studentId);
             
             System.out.println("========================================");
             
@@ -199,6 +230,143 @@ public class CourseService {
         }
     }
     
+    /**
+     * Bookings of an institution's teacher and/or location that overlap a weekly slot
+     * (GET /api/v1/courses/conflicts). Without dates the slot is treated as open-ended from today.
+     */
+    public Map<String, Object> findConflicts(String institutionIdStr,
+                                             String teacherName,
+                                             String location,
+                                             String dayOfWeek,
+                                             String startTimeStr,
+                                             String endTimeStr,
+                                             String startDateStr,
+                                             String endDateStr,
+                                             String excludeCourseIdStr) {
+        try {
+            if (institutionIdStr == null || institutionIdStr.isEmpty()) {
+                throw new RuntimeException("institutionId is required");
+            }
+            UUID institutionId = UUID.fromString(institutionIdStr);
+            if (BookingIndex.normalize(teacherName) == null && BookingIndex.normalize(location) == null) {
+                throw new RuntimeException("teacherName or location is required");
+            }
+            
+            LocalTime startTime = LocalTime.parse(startTimeStr);
+            LocalTime endTime = LocalTime.parse(endTimeStr);
+            if (!endTime.isAfter(startTime)) {
+                throw new RuntimeException("endTime must be after startTime");
+            }
+            LocalDate startDate = startDateStr != null && !startDateStr.isEmpty() ? LocalDate.parse(startDateStr) : LocalDate.now();
+            LocalDate endDate = endDateStr != null && !endDateStr.isEmpty() ? LocalDate.parse(endDateStr) : null;
+            UUID excludeCourseId = excludeCourseIdStr != null && !excludeCourseIdStr.isEmpty() ? UUID.fromString(excludeCourseIdStr) : null;
+            
+            WeeklySlot candidate = WeeklySlot.of(
+                null,
+                null,
+                parseDayOfWeek(dayOfWeek),
+                startTime,
+                Duration.between(startTime, endTime).toMinutes(),
+                startDate,
+                endDate
+            );
+            List<ScheduleConflict> conflicts = bookingIndex.findConflicts(institutionId, teacherName, location, candidate, excludeCourseId);
+            System.out.println("🔎 Conflict query " + dayOfWeek + " " + startTime + "-" + endTime +
+                              " (teacher: " + teacherName + ", location: " + location + "): " + conflicts.size() + " conflict(s)");
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", conflicts.isEmpty() ? "No conflicts" : conflicts.size() + " conflict(s) found");
+            
+            Map<String, Object> data = new HashMap<>();
+            data.put("conflicts", conflicts);
+            response.put("data", data);
+            
+            return response;
+            
+        } catch (Exception e) {
+            System.err.println("❌ Error finding conflicts: " + e.getMessage());
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to find conflicts: " + e.getMessage());
+            
+            return errorResponse;
+        }
+    }
+    
+    /**
+     * Weekly slots of the requested schedule entries, with the sessions split evenly among them.
+     */
+    private List<WeeklySlot> buildCandidateSlots(Integer totalSessions,
+                                                 LocalDate courseStartDate,
+                                                 List<ScheduleEntry> scheduleArray) {
+        List<WeeklySlot> candidates = new ArrayList<>();
+        int sessionsPerSchedule = Math.max(totalSessions / scheduleArray.size(), 1);
+        for (ScheduleEntry scheduleEntry : scheduleArray) {
+            LocalTime startTime = LocalTime.parse(scheduleEntry.startTime());
+            LocalTime endTime = LocalTime.parse(scheduleEntry.endTime());
+            LocalDate firstValidDate = calculateFirstValidDate(courseStartDate, scheduleEntry.dayOfWeek());
+            candidates.add(WeeklySlot.of(
+                null,
+                null,
+                parseDayOfWeek(scheduleEntry.dayOfWeek()),
+                startTime,
+                Duration.between(startTime, endTime).toMinutes(),
+                firstValidDate,
+                firstValidDate.plusWeeks(sessionsPerSchedule - 1)
+            ));
+        }
+        return candidates;
+    }
+    
+    /**
+     * The institution's teacher/location bookings that overlap the requested weekly slots, from
+     * the booking index.
+     */
+    private List<ScheduleConflict> findBookingConflicts(UUID institutionId,
+                                                        String teacherName,
+                                                        String location,
+                                                        List<WeeklySlot> candidates) {
+        List<ScheduleConflict> conflicts = new ArrayList<>();
+        if (BookingIndex.normalize(teacherName) == null && BookingIndex.normalize(location) == null) {
+            return conflicts;
+        }
+        
+        for (WeeklySlot candidate : candidates) {
+            conflicts.addAll(bookingIndex.findConflicts(institutionId, teacherName, location, candidate, null));
+        }
+        
+        if (!conflicts.isEmpty()) {
+            System.out.println("⚠️ Found " + conflicts.size() + " teacher/location conflict(s)");
+        }
+        return conflicts;
+    }
+    
+    /**
+     * 409 body: teacher/location conflicts and, for student courses, the student's enrolled
+     * courses that overlap the new one.
+     */
+    private Map<String, Object> buildConflictResponse(List<ScheduleConflict> conflicts, List<UUID> clashingCourseIds) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        String message = conflicts.isEmpty()
+            ? "Schedule clashes with the student's existing courses. "
+            : "Schedule conflicts with existing bookings for the same teacher or location. ";
+        response.put("message", message + "Set allowConflicts to true to create the course anyway.");
+        
+        Map<String, Object> data = new HashMap<>();
+        data.put("conflicts", conflicts);
+        List<String> courseIds = new ArrayList<>();
+        for (UUID courseId : clashingCourseIds) {
+            courseIds.add(courseId.toString());
+        }
+        data.put("clashingCourseIds", courseIds);
+        response.put("data", data);
+        
+        return response;
+    }
+    
     /**
      * Calculate the first valid date for a given day of week on or after the start date
      */
@@ -294,6 +462,8 @@ public class CourseService {
             enrollment.setStatus("inactive");
             enrollment.setDeactivatedAt(deactivatedAt);
             enrollmentRepository.save(enrollment);
+            dataVersionService.bumpStudent(studentId);
+            studentTimetableCache.invalidateAfterCommit(studentId);
             
             System.out.println("✅ Enrollment marked as inactive (deactivated at " + deactivatedAt + ")");
             System.out.println("========================================");
@@ -339,7 +509,7 @@ public class CourseService {
     }
     
     @Transactional(rollbackFor = Exception.class)
-    public Map<String, Object> createInstitutionCourse(Map<String, Object> request) {
+    public Map<String, Object> createInstitutionCourse(CreateCourseRequest request) {
         try {
             System.out.println("========================================");
             System.out.println("🏫 Creating new institution course:");
@@ -347,14 +517,17 @@ public class CourseService {
             System.out.println("========================================");
             
             // Extract course details
-            String courseName = (String) request.get("courseName");
-            String teacherName = (String) request.get("teacherName");
-            String location = (String) request.get("location");
-            Integer totalSessions = ((Number) request.get("totalSessions")).intValue();
-            String courseStartDateStr = (String) request.get("courseStartDate");
+            String courseName = request.courseName();
+            String teacherName = request.teacherName();
+            String location = request.location();
+            Integer totalSessions = request.totalSessions();
+            if (totalSessions == null) {
+                throw new RuntimeException("totalSessions is required");
+            }
+            String courseStartDateStr = request.courseStartDate();
             
             // institutionId is required when institution adds a course
-            String institutionIdStr = (String) request.get("institutionId");
+            String institutionIdStr = request.institutionId();
             if (institutionIdStr == null || institutionIdStr.isEmpty()) {
                 throw new RuntimeException("institutionId is required");
             }
@@ -363,8 +536,8 @@ public class CourseService {
             UUID institutionId = UUID.fromString(institutionIdStr);
             
             // Optional fields
-            String description = request.get("description") != null ? (String) request.get("description") : null;
-            Integer maxStudents = request.get("maxStudents") != null ? ((Number) request.get("maxStudents")).intValue() : null;
+            String description = request.description();
+            Integer maxStudents = request.maxStudents();
             
             System.out.println("Course Name: " + courseName);
             System.out.println("Teacher Name: " + teacherName);
@@ -378,8 +551,7 @@ public class CourseService {
             LocalDate courseStartDate = LocalDate.parse(courseStartDateStr);
             
             // Extract schedule array
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> scheduleArray = (List<Map<String, Object>>) request.get("schedule");
+            List<ScheduleEntry> scheduleArray = request.schedule();
             
             if (scheduleArray == null || scheduleArray.isEmpty()) {
                 throw new RuntimeException("Schedule array cannot be empty");
@@ -387,6 +559,14 @@ public class CourseService {
             
             System.out.println("Number of schedule entries: " + scheduleArray.size());
             
+            if (!Boolean.TRUE.equals(request.allowConflicts())) {
+                List<WeeklySlot> candidates = buildCandidateSlots(totalSessions, courseStartDate, scheduleArray);
+                List<ScheduleConflict> conflicts = findBookingConflicts(institutionId, teacherName, location, candidates);
+                if (!conflicts.isEmpty()) {
+                    return buildConflictResponse(conflicts, List.of());
+                }
+            }
+            
             // Generate random 8-character code
             String courseCode = generateRandomCode();
             System.out.println("✅ Generated course code: " + courseCode);
@@ -399,6 +579,7 @@ public class CourseService {
                 course.setTeacherName(teacherName);
             }
             course.setLocation(location);
+            course.setInstitutionId(institutionId);
             course.setTotalSessions(totalSessions);
             course.setDescription(description);
             course.setMaxStudents(maxStudents);
@@ -415,10 +596,10 @@ public class CourseService {
             // Step 3: Process schedule array
             List<Schedule> schedules = new ArrayList<>();
             
-            for (Map<String, Object> scheduleEntry : scheduleArray) {
-                String dayOfWeek = (String) scheduleEntry.get("dayOfWeek");
-                String startTimeStr = (String) scheduleEntry.get("startTime");
-                String endTimeStr = (String) scheduleEntry.get("endTime");
+            for (ScheduleEntry scheduleEntry : scheduleArray) {
+                String dayOfWeek = scheduleEntry.dayOfWeek();
+                String startTimeStr = scheduleEntry.startTime();
+                String endTimeStr = scheduleEntry.endTime();
                 
                 System.out.println("Processing schedule entry:");
                 System.out.println("  Day of Week: " + dayOfWeek);
@@ -457,6 +638,8 @@ public class CourseService {
             List<Schedule> savedSchedules = scheduleRepository.saveAll(schedules);
             
             System.out.println("✅ Saved " + savedSchedules.size() + " schedule entries");
+            bookingIndex.indexAfterCommit(savedCourse, savedSchedules);
+            classOccurrenceProjection.refreshCourses(List.of(savedCourse.getId()));
             
             // Note: Institution course creation does NOT create enrollments
             // Students will enroll later using the course code
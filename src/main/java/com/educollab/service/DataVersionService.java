@@ -0,0 +1,74 @@
+package com.educollab.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Per-student data version behind the ETags on the schedules, payments and summary endpoints.
+ *
+ * Every write that changes what those endpoints return bumps the version inside the writer's
+ * transaction. Reads compare If-None-Match against an ETag built from the version with a single
+ * primary-key lookup, so unchanged polls return 304 without running the expansion engine.
+ *
+ * Plain JDBC on purpose: a native Hibernate update would evict every second-level cache region.
+ */
+@Service
+public class DataVersionService {
+    
+    private static final String BUMP_STUDENT_SQL =
+        "INSERT INTO student_data_versions (student_id, version, updated_at) VALUES (?, 1, NOW()) " +
+        "ON CONFLICT (student_id) DO UPDATE SET version = student_data_versions.version + 1, updated_at = NOW()";
+    
+    private static final String BUMP_COURSE_SQL =
+        "INSERT INTO student_data_versions (student_id, version, updated_at) " +
+        "SELECT DISTINCT student_id, 1, NOW() FROM course_enrollments WHERE course_id = ? " +
+        "ON CONFLICT (student_id) DO UPDATE SET version = student_data_versions.version + 1, updated_at = NOW()";
+    
+    private static final String SELECT_VERSION_SQL =
+        "SELECT version FROM student_data_versions WHERE student_id = ?";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    public void bumpStudent(UUID studentId) {
+        jdbcTemplate.update(BUMP_STUDENT_SQL, studentId);
+    }
+    
+    /**
+     * Bump every student enrolled in a course (schedule and exception changes).
+     */
+    public void bumpCourse(UUID courseId) {
+        int bumped = jdbcTemplate.update(BUMP_COURSE_SQL, courseId);
+        System.out.println("🔖 Bumped data version for " + bumped + " student(s) of course " + courseId);
+    }
+    
+    public long getVersion(UUID studentId) {
+        List<Long> versions = jdbcTemplate.queryForList(SELECT_VERSION_SQL, Long.class, studentId);
+        return versions.isEmpty() ? 0L : versions.get(0);
+    }
+    
+    /**
+     * Weak ETag (W/"...") for one representation of a student's data. Request parameters and
+     * today's date are folded in because defaulted ranges and the summary cut-off move with the
+     * calendar. Weak because Tomcat does not gzip responses carrying a strong ETag (the bytes
+     * would change); checkNotModified compares weakly on GET, so polls still get 304.
+     */
+    public String buildEtag(String studentIdStr, String resource, Object... params) {
+        UUID studentId;
+        try {
+            studentId = UUID.fromString(studentIdStr);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid studentId format: " + studentIdStr);
+        }
+        
+        long version = getVersion(studentId);
+        int paramsHash = 31 * (31 * studentId.hashCode() + Arrays.hashCode(params)) + LocalDate.now().hashCode();
+        return "W/\"" + resource + "-" + version + "-" + Integer.toHexString(paramsHash) + "\"";
+    }
+}
@@ -0,0 +1,135 @@
+package com.educollab.service;
+
+import com.educollab.dto.InstitutionClosureRequest;
+import com.educollab.dto.InstitutionClosureRequest.ClosureRange;
+import com.educollab.model.Course;
+import com.educollab.model.InstitutionClosure;
+import com.educollab.repository.CourseRepository;
+import com.educollab.repository.InstitutionClosureRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Institution-wide closed days. One row per holiday or term break replaces a cancellation
+ * exception per schedule per date; ClassScheduleService cancels the occurrences of the
+ * institution's courses that fall on them.
+ */
+@Service
+public class InstitutionClosureService {
+    
+    @Autowired
+    private InstitutionClosureRepository institutionClosureRepository;
+    
+    @Autowired
+    private CourseRepository courseRepository;
+    
+    @Autowired
+    private DataVersionService dataVersionService;
+    
+    @Autowired
+    private ClassOccurrenceProjection classOccurrenceProjection;
+    
+    @Value("${app.closures.max-range-days:366}")
+    private int maxRangeDays;
+    
+    @Transactional(rollbackFor = Exception.class)
+    public Map<String, Object> declareClosures(String institutionIdStr, InstitutionClosureRequest request) {
+        try {
+            UUID institutionId = UUID.fromString(institutionIdStr);
+            if (request == null || request.closures() == null || request.closures().isEmpty()) {
+                throw new RuntimeException("closures cannot be empty");
+            }
+            
+            List<InstitutionClosure> closures = new ArrayList<>();
+            for (ClosureRange range : request.closures()) {
+                if (range.startDate() == null || range.startDate().isEmpty()) {
+                    throw new RuntimeException("startDate is required for every closure");
+                }
+                LocalDate startDate = LocalDate.parse(range.startDate());
+                LocalDate endDate = range.endDate() != null && !range.endDate().isEmpty()
+                    ? LocalDate.parse(range.endDate())
+                    : startDate;
+                if (endDate.isBefore(startDate)) {
+                    throw new RuntimeException("endDate must not be before startDate (" + range.startDate() + ")");
+                }
+                if (ChronoUnit.DAYS.between(startDate, endDate) >= maxRangeDays) {
+                    throw new RuntimeException("A closure cannot exceed " + maxRangeDays + " days (" + range.startDate() + ")");
+                }
+                closures.add(new InstitutionClosure(institutionId, startDate, endDate, range.reason()));
+            }
+            
+            List<InstitutionClosure> saved = institutionClosureRepository.saveAll(closures);
+            
+            // Cached schedule/summary responses of every student in the institution's courses change
+            List<Course> courses = courseRepository.findByInstitutionId(institutionId);
+            List<UUID> courseIds = new ArrayList<>();
+            for (Course course : courses) {
+                dataVersionService.bumpCourse(course.getId());
+                courseIds.add(course.getId());
+            }
+            classOccurrenceProjection.refreshCourses(courseIds);
+            
+            System.out.println("✅ Declared " + saved.size() + " closure(s) for institution " + institutionId +
+                              " affecting " + courses.size() + " course(s)");
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Closures declared successfully");
+            
+            Map<String, Object> data = new HashMap<>();
+            data.put("institutionId", institutionId.toString());
+            data.put("closuresCreated", saved.size());
+            data.put("coursesAffected", courses.size());
+            data.put("closures", toClosureList(saved));
+            response.put("data", data);
+            
+            return response;
+            
+        } catch (Exception e) {
+            System.err.println("❌ Error declaring closures: " + e.getMessage());
+            e.printStackTrace();
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to declare closures: " + e.getMessage());
+            
+            return errorResponse;
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public Map<String, Object> getClosures(String institutionIdStr) {
+        UUID institutionId = UUID.fromString(institutionIdStr);
+        List<InstitutionClosure> closures = institutionClosureRepository.findByInstitutionIdOrderByStartDateAsc(institutionId);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", closures.size() + " closure(s) found");
+        
+        Map<String, Object> data = new HashMap<>();
+        data.put("institutionId", institutionId.toString());
+        data.put("closures", toClosureList(closures));
+        response.put("data", data);
+        
+        return response;
+    }
+    
+    private List<Map<String, Object>> toClosureList(List<InstitutionClosure> closures) {
+        List<Map<String, Object>> result = new ArrayList<>(closures.size());
+        for (InstitutionClosure closure : closures) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("id", closure.getId().toString());
+            item.put("startDate", closure.getStartDate().toString());
+            item.put("endDate", closure.getEndDate().toString());
+            item.put("reason", closure.getReason());
+            result.add(item);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,275 @@
+package com.educollab.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies Supabase-issued access tokens locally.
+ * 
+ * Keys are held in memory (HS256 secret, or the project JWKS refreshed in the background),
+ * and verified claims are cached per token until the token expires, so a repeat request
+ * costs a single cache lookup and never a call to /auth/v1/user.
+ * 
+ * A token signed with an unknown key id is rejected straight away. At most once per
+ * supabase.jwt.jwks-min-refresh-ms it also starts a non-blocking JWKS refresh (key rotation),
+ * and the unknown id is remembered for that interval, so junk tokens cannot make request
+ * threads wait on the network.
+ *
+ * Always registered; when supabase.jwt.enabled is false it loads no keys and the
+ * authentication filter lets requests through.
+ */
+@Service
+public class JwtVerificationService {
+    
+    private static final long CLOCK_SKEW_SECONDS = 30;
+    
+    private static final String SERVICE_ROLE = "service_role";
+    
+    @Autowired
+    private WebClient supabaseWebClient;
+    
+    // Checked at runtime rather than with @ConditionalOnProperty: AOT fixes conditions at build
+    // time, and an image built without the flag must not silently run without authentication
+    @Value("${supabase.jwt.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${supabase.jwt.secret:}")
+    private String jwtSecret;
+    
+    @Value("${supabase.jwt.jwks-url}")
+    private String jwksUrl;
+    
+    @Value("${supabase.jwt.claims-cache-size:10000}")
+    private long claimsCacheSize;
+    
+    @Value("${supabase.jwt.jwks-min-refresh-ms:30000}")
+    private long jwksMinRefreshMs;
+    
+    // Required "aud" of user tokens; service_role keys carry none
+    @Value("${supabase.jwt.audience:authenticated}")
+    private String audience;
+    
+    private JWSVerifier hmacVerifier;
+    private final Map<String, JWSVerifier> jwksVerifiers = new ConcurrentHashMap<>();
+    private Cache<String, JWTClaimsSet> claimsCache;
+    private Cache<String, Boolean> unknownKeyIds;
+    private final AtomicBoolean jwksRefreshing = new AtomicBoolean();
+    private final AtomicLong lastJwksRefreshMs = new AtomicLong();
+    
+    @PostConstruct
+    void init() throws Exception {
+        claimsCache = Caffeine.newBuilder()
+            .maximumSize(claimsCacheSize)
+            .expireAfter(new Expiry<String, JWTClaimsSet>() {
+                @Override
+                public long expireAfterCreate(String token, JWTClaimsSet claims, long currentTime) {
+                    long millisLeft = claims.getExpirationTime().getTime() - System.currentTimeMillis();
+                    return Duration.ofMillis(Math.max(millisLeft, 0)).toNanos();
+                }
+                
+                @Override
+                public long expireAfterUpdate(String token, JWTClaimsSet claims, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+                
+                @Override
+                public long expireAfterRead(String token, JWTClaimsSet claims, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+        unknownKeyIds = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofMillis(jwksMinRefreshMs))
+            .build();
+        
+        if (!enabled) {
+            System.out.println("ℹ️ JWT verification disabled (supabase.jwt.enabled=false)");
+            return;
+        }
+        if (jwtSecret != null && !jwtSecret.isEmpty()) {
+            hmacVerifier = new MACVerifier(jwtSecret.getBytes(StandardCharsets.UTF_8));
+            System.out.println("🔐 JWT verification enabled (HS256 shared secret)");
+        } else {
+            System.out.println("🔐 JWT verification enabled (JWKS: " + jwksUrl + ")");
+            refreshJwks();
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Verify a bearer token and return its claims.
+     * @throws RuntimeException if the token is malformed, badly signed, expired or not yet valid
+     */
+    public JWTClaimsSet verify(String token) {
+        JWTClaimsSet cached = claimsCache.getIfPresent(token);
+        if (cached != null) {
+            return cached;
+        }
+        
+        try {
+            SignedJWT jwt = SignedJWT.parse(token);
+            JWSVerifier verifier = verifierFor(jwt.getHeader());
+            if (!jwt.verify(verifier)) {
+                throw new RuntimeException("Invalid token signature");
+            }
+            
+            JWTClaimsSet claims = jwt.getJWTClaimsSet();
+            long now = System.currentTimeMillis();
+            Date expiresAt = claims.getExpirationTime();
+            if (expiresAt == null || expiresAt.getTime() + CLOCK_SKEW_SECONDS * 1000 < now) {
+                throw new RuntimeException("Token expired");
+            }
+            Date notBefore = claims.getNotBeforeTime();
+            if (notBefore != null && notBefore.getTime() - CLOCK_SKEW_SECONDS * 1000 > now) {
+                throw new RuntimeException("Token not yet valid");
+            }
+            // service_role keys have neither sub nor aud; user tokens need both
+            if (!SERVICE_ROLE.equals(claims.getClaim("role"))) {
+                if (claims.getSubject() == null) {
+                    throw new RuntimeException("Token has no subject");
+                }
+                if (claims.getAudience() == null || !claims.getAudience().contains(audience)) {
+                    throw new RuntimeException("Token audience is not " + audience);
+                }
+            }
+            
+            claimsCache.put(token, claims);
+            return claims;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid token: " + e.getMessage(), e);
+        }
+    }
+    
+    private JWSVerifier verifierFor(JWSHeader header) {
+        if (JWSAlgorithm.Family.HMAC_SHA.contains(header.getAlgorithm())) {
+            if (hmacVerifier == null) {
+                throw new RuntimeException("HS256 tokens are not accepted: supabase.jwt.secret is not configured");
+            }
+            return hmacVerifier;
+        }
+        
+        String keyId = header.getKeyID();
+        if (keyId == null) {
+            throw new RuntimeException("Token has no key id");
+        }
+        JWSVerifier verifier = jwksVerifiers.get(keyId);
+        if (verifier != null) {
+            return verifier;
+        }
+        
+        // Possibly a rotated key: refresh in the background (throttled) and reject this token
+        if (unknownKeyIds.getIfPresent(keyId) == null) {
+            unknownKeyIds.put(keyId, Boolean.TRUE);
+            long now = System.currentTimeMillis();
+            long last = lastJwksRefreshMs.get();
+            if (now - last >= jwksMinRefreshMs && lastJwksRefreshMs.compareAndSet(last, now)) {
+                refreshJwksAsync();
+            }
+        }
+        throw new RuntimeException("Unknown signing key: " + keyId);
+    }
+    
+    /**
+     * Background refresh of the JWKS so request threads never wait on the network.
+     */
+    @Scheduled(fixedDelayString = "${supabase.jwt.jwks-refresh-ms:600000}",
+               initialDelayString = "${supabase.jwt.jwks-refresh-ms:600000}")
+    public void scheduledJwksRefresh() {
+        if (enabled && hmacVerifier == null) {
+            refreshJwks();
+        }
+    }
+    
+    /**
+     * Start a JWKS fetch without waiting for it; no-op while another fetch is in flight.
+     */
+    private void refreshJwksAsync() {
+        if (!jwksRefreshing.compareAndSet(false, true)) {
+            return;
+        }
+        supabaseWebClient.get()
+            .uri(jwksUrl)
+            .retrieve()
+            .bodyToMono(String.class)
+            .timeout(Duration.ofSeconds(5))
+            .doFinally(signal -> jwksRefreshing.set(false))
+            .subscribe(this::applyJwks,
+                       e -> System.err.println("⚠️ Failed to refresh JWKS from " + jwksUrl + ": " + e.getMessage()));
+    }
+    
+    /**
+     * Blocking fetch for startup and the scheduled refresh (never called on a request thread).
+     */
+    private void refreshJwks() {
+        if (!jwksRefreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lastJwksRefreshMs.set(System.currentTimeMillis());
+            String body = supabaseWebClient.get()
+                .uri(jwksUrl)
+                .retrieve()
+                .bodyToMono(String.class)
+                .block(Duration.ofSeconds(5));
+            applyJwks(body);
+        } catch (Exception e) {
+            // Keep serving with the keys we already have
+            System.err.println("⚠️ Failed to refresh JWKS from " + jwksUrl + ": " + e.getMessage());
+        } finally {
+            jwksRefreshing.set(false);
+        }
+    }
+    
+    private void applyJwks(String body) {
+        try {
+            JWKSet jwkSet = JWKSet.parse(body);
+            for (JWK key : jwkSet.getKeys()) {
+                if (key.getKeyID() == null) {
+                    continue;
+                }
+                if (key instanceof ECKey ecKey) {
+                    jwksVerifiers.put(key.getKeyID(), new ECDSAVerifier(ecKey.toECPublicKey()));
+                } else if (key instanceof RSAKey rsaKey) {
+                    jwksVerifiers.put(key.getKeyID(), new RSASSAVerifier(rsaKey.toRSAPublicKey()));
+                }
+            }
+            unknownKeyIds.invalidateAll(jwksVerifiers.keySet());
+            System.out.println("🔑 Loaded " + jwksVerifiers.size() + " JWKS signing key(s)");
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to parse JWKS from " + jwksUrl + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.educollab.service;
+
+import com.educollab.dto.ChildDashboard;
+import com.educollab.dto.ClassScheduleResponse;
+import com.educollab.dto.ParentDashboardResponse;
+import com.educollab.dto.PaymentEventsResponse;
+import com.educollab.dto.StudentSummaryResponse;
+import com.educollab.model.Course;
+import com.educollab.model.Enrollment;
+import com.educollab.model.InstitutionClosure;
+import com.educollab.model.PaymentEvent;
+import com.educollab.model.PaymentSchedule;
+import com.educollab.model.Schedule;
+import com.educollab.model.ScheduleException;
+import com.educollab.model.Student;
+import com.educollab.repository.CourseRepository;
+import com.educollab.repository.EnrollmentRepository;
+import com.educollab.repository.InstitutionClosureRepository;
+import com.educollab.repository.PaymentEventRepository;
+import com.educollab.repository.PaymentScheduleRepository;
+import com.educollab.repository.ScheduleExceptionRepository;
+import com.educollab.repository.ScheduleRepository;
+import com.educollab.repository.StudentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Everything a parent's home screen needs in one call.
+ *
+ * Rows for all children (enrollments, courses, schedules, exceptions, payment schedules and
+ * events) are read in one short transaction with one batched query each, instead of 1 + 3N
+ * requests that each re-validate the student. The connection is released before the per-child
+ * expansion, which then runs in parallel on a small bounded pool; when the pool and its queue
+ * are full the request thread expands the child itself.
+ *
+ * Like GET /api/v1/payments, missing payment events in the range are generated from the payment
+ * schedules before the events are read, so that transaction is read-write.
+ */
+@Service
+public class ParentDashboardService {
+    
+    @Autowired
+    private StudentRepository studentRepository;
+    
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+    
+    @Autowired
+    private CourseRepository courseRepository;
+    
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+    
+    @Autowired
+    private ScheduleExceptionRepository scheduleExceptionRepository;
+    
+    @Autowired
+    private InstitutionClosureRepository institutionClosureRepository;
+    
+    @Autowired
+    private PaymentScheduleRepository paymentScheduleRepository;
+    
+    @Autowired
+    private PaymentEventRepository paymentEventRepository;
+    
+    @Autowired
+    private ClassScheduleService classScheduleService;
+    
+    @Autowired
+    private PaymentQueryService paymentQueryService;
+    
+    @Autowired
+    private SummaryService summaryService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.dashboard.threads:4}")
+    private int threads;
+    
+    @Value("${app.dashboard.queue-capacity:64}")
+    private int queueCapacity;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    private ThreadPoolExecutor expansionExecutor;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        
+        expansionExecutor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            60L,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new CustomizableThreadFactory("dashboard-"),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        expansionExecutor.allowCoreThreadTimeOut(true);
+        System.out.println("🏠 Dashboard expansion pool: threads=" + threads + ", queueCapacity=" + queueCapacity);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        expansionExecutor.shutdown();
+    }
+    
+    public ParentDashboardResponse getDashboard(String parentId,
+                                                LocalDate startDate,
+                                                LocalDate endDate,
+                                                Integer maximumCount) {
+        System.out.println("========================================");
+        System.out.println("🏠 Building parent dashboard:");
+        System.out.println("Parent ID: " + parentId);
+        System.out.println("Start Date: " + startDate + ", End Date: " + endDate + ", Maximum Count: " + maximumCount);
+        System.out.println("========================================");
+        
+        DashboardRows rows;
+        try {
+            rows = transactionTemplate.execute(status -> loadRows(parentId, startDate, endDate, maximumCount));
+        } catch (Exception e) {
+            System.err.println("❌ Error loading parent dashboard: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to load parent dashboard: " + e.getMessage(), e);
+        }
+        
+        List<CompletableFuture<ChildDashboard>> futures = new ArrayList<>(rows.children.size());
+        for (Student child : rows.children) {
+            futures.add(CompletableFuture.supplyAsync(
+                () -> buildChildDashboard(child, rows, startDate, endDate, maximumCount),
+                expansionExecutor
+            ));
+        }
+        
+        List<ChildDashboard> children = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<ChildDashboard> future : futures) {
+                children.add(future.join());
+            }
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("❌ Error building parent dashboard: " + cause.getMessage());
+            throw new RuntimeException("Failed to build parent dashboard: " + cause.getMessage(), cause);
+        }
+        
+        System.out.println("✅ Dashboard built for " + children.size() + " child(ren)");
+        System.out.println("========================================");
+        return new ParentDashboardResponse(parentId, startDate, endDate, children);
+    }
+    
+    private DashboardRows loadRows(String parentId, LocalDate startDate, LocalDate endDate, Integer maximumCount) {
+        DashboardRows rows = new DashboardRows();
+        rows.children = studentRepository.findByAssociatedParentId(parentId);
+        System.out.println("✅ Found " + rows.children.size() + " child(ren)");
+        if (rows.children.isEmpty()) {
+            return rows;
+        }
+        
+        Set<UUID> studentIds = new HashSet<>();
+        for (Student child : rows.children) {
+            studentIds.add(child.getId());
+        }
+        
+        Set<UUID> courseIds = new HashSet<>();
+        for (Enrollment enrollment : enrollmentRepository.findByStudentIdIn(studentIds)) {
+            rows.enrollmentsByStudent
+                .computeIfAbsent(enrollment.getStudentId(), id -> new ArrayList<>())
+                .add(enrollment);
+            if (enrollment.getCourseId() != null) {
+                courseIds.add(enrollment.getCourseId());
+            }
+        }
+        
+        if (!courseIds.isEmpty()) {
+            rows.courses = courseRepository.findAllById(courseIds);
+            rows.schedules = scheduleRepository.findByCourseIdIn(courseIds);
+            
+            Set<UUID> scheduleIds = new HashSet<>();
+            for (Schedule schedule : rows.schedules) {
+                scheduleIds.add(schedule.getId());
+            }
+            if (!scheduleIds.isEmpty()) {
+                rows.exceptions = scheduleExceptionRepository.findByScheduleIdIn(scheduleIds);
+            }
+            
+            Set<UUID> institutionIds = new HashSet<>();
+            for (Course course : rows.courses) {
+                if (course.getInstitutionId() != null) {
+                    institutionIds.add(course.getInstitutionId());
+                }
+            }
+            if (!institutionIds.isEmpty()) {
+                rows.closures = institutionClosureRepository.findByInstitutionIdIn(institutionIds);
+            }
+        }
+        
+        for (PaymentSchedule paymentSchedule : paymentScheduleRepository.findByStudentIdIn(studentIds)) {
+            rows.paymentSchedulesByStudent
+                .computeIfAbsent(paymentSchedule.getStudentId(), id -> new ArrayList<>())
+                .add(paymentSchedule);
+        }
+        
+        // Same generation step as GET /api/v1/payments, before the events are read
+        for (Student child : rows.children) {
+            paymentQueryService.generateMissingPaymentEvents(
+                child.getId(),
+                rows.paymentSchedulesByStudent.getOrDefault(child.getId(), Collections.emptyList()),
+                startDate,
+                endDate,
+                maximumCount
+            );
+        }
+        
+        for (PaymentEvent event : paymentEventRepository.findByStudentIdInAndDueDateBetweenOrderByDueDateAsc(studentIds, startDate, endDate)) {
+            rows.paymentEventsByStudent
+                .computeIfAbsent(event.getStudentId(), id -> new ArrayList<>())
+                .add(event);
+        }
+        
+        for (PaymentEvent event : paymentEventRepository.findByStudentIdInAndStatusAndDueDateBefore(studentIds, "paid", LocalDate.now())) {
+            rows.paidEventsByStudent
+                .computeIfAbsent(event.getStudentId(), id -> new ArrayList<>())
+                .add(event);
+        }
+        
+        System.out.println("✅ Loaded " + courseIds.size() + " course(s), " + rows.schedules.size() + " schedule(s), " +
+                          rows.exceptions.size() + " exception(s) for all children");
+        return rows;
+    }
+    
+    /**
+     * Pure CPU work on the loaded rows; runs on the dashboard pool.
+     */
+    private ChildDashboard buildChildDashboard(Student child,
+                                               DashboardRows rows,
+                                               LocalDate startDate,
+                                               LocalDate endDate,
+                                               Integer maximumCount) {
+        UUID studentId = child.getId();
+        LocalDate today = LocalDate.now();
+        
+        ClassScheduleResponse schedules;
+        StudentSummaryResponse summary;
+        List<Enrollment> enrollments = rows.enrollmentsByStudent.getOrDefault(studentId, Collections.emptyList());
+        if (enrollments.isEmpty()) {
+            schedules = new ClassScheduleResponse(new ArrayList<>(), new ArrayList<>());
+            summary = new StudentSummaryResponse(studentId.toString(), today, Collections.emptyList());
+        } else {
+            ClassScheduleService.ExpansionPlan plan = classScheduleService.buildExpansionPlan(
+                enrollments, rows.courses, rows.schedules, rows.exceptions, rows.closures
+            );
+            schedules = classScheduleService.expandPlan(plan, startDate, endDate, maximumCount);
+            
+            ClassScheduleResponse history = classScheduleService.expandPlan(
+                plan, SummaryService.DEFAULT_START_DATE, SummaryService.historyEndDate(), null
+            );
+            summary = new StudentSummaryResponse(
+                studentId.toString(),
+                today,
+                summaryService.buildCourseSummaries(
+                    plan.courses,
+                    plan.schedules,
+                    rows.paidEventsByStudent.getOrDefault(studentId, Collections.emptyList()),
+                    history
+                )
+            );
+        }
+        
+        List<PaymentEvent> paymentEvents = rows.paymentEventsByStudent.getOrDefault(studentId, Collections.emptyList());
+        if (maximumCount != null && paymentEvents.size() > maximumCount) {
+            paymentEvents = paymentEvents.subList(0, maximumCount);
+        }
+        PaymentEventsResponse payments = paymentQueryService.buildPaymentResponse(
+            paymentQueryService.formatPaymentSchedules(
+                rows.paymentSchedulesByStudent.getOrDefault(studentId, Collections.emptyList())
+            ),
+            paymentQueryService.formatPaymentEvents(paymentEvents)
+        );
+        
+        return new ChildDashboard(studentId, child.getName(), schedules, payments, summary);
+    }
+    
+    /**
+     * Rows for all of a parent's children, grouped by student where the data is per student.
+     */
+    private static class DashboardRows {
+        List<Student> children = Collections.emptyList();
+        final Map<UUID, List<Enrollment>> enrollmentsByStudent = new HashMap<>();
+        List<Course> courses = Collections.emptyList();
+        List<Schedule> schedules = Collections.emptyList();
+        List<ScheduleException> exceptions = Collections.emptyList();
+        List<InstitutionClosure> closures = Collections.emptyList();
+        final Map<UUID, List<PaymentSchedule>> paymentSchedulesByStudent = new HashMap<>();
+        final Map<UUID, List<PaymentEvent>> paymentEventsByStudent = new HashMap<>();
+        final Map<UUID, List<PaymentEvent>> paidEventsByStudent = new HashMap<>();
+    }
+}
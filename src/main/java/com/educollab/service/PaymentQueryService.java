@@ -1,14 +1,26 @@
 package com.educollab.service;
 
+import com.educollab.dto.PaymentEventInfo;
+import com.educollab.dto.PaymentEventsResponse;
+import com.educollab.dto.PaymentScheduleInfo;
 import com.educollab.model.PaymentEvent;
 import com.educollab.model.PaymentSchedule;
 import com.educollab.model.Student;
 import com.educollab.repository.PaymentEventRepository;
 import com.educollab.repository.PaymentScheduleRepository;
 import com.educollab.repository.StudentRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
@@ -18,6 +30,9 @@ import java.util.*;
 @Service
 public class PaymentQueryService {
     
+    // Smallest UUID: the keyset of the first streamed chunk starts before every id
+    private static final UUID FIRST_KEY = new UUID(0L, 0L);
+    
     @Autowired
     private PaymentEventRepository paymentEventRepository;
     
@@ -27,8 +42,28 @@ public class PaymentQueryService {
     @Autowired
     private StudentRepository studentRepository;
     
+    @Autowired
+    private DataVersionService dataVersionService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.payments.stream-chunk-size:200}")
+    private int streamChunkSize;
+    
+    private TransactionTemplate readOnlyTransactionTemplate;
+    
+    @PostConstruct
+    void initTransactionTemplate() {
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+    }
+    
     @Transactional
-    public Map<String, Object> getPaymentEvents(String studentIdStr,
+    public PaymentEventsResponse getPaymentEvents(String studentIdStr,
                                                 LocalDate startDate,
                                                 LocalDate endDate,
                                                 Integer maximumCount) {
@@ -95,6 +130,8 @@ public class PaymentQueryService {
                     maximumCount
                 );
                 
+                // No data version bump: generated events follow from the payment schedules,
+                // so the response for a given range was already implied by the current version
                 if (!newEvents.isEmpty()) {
                     System.out.println("✅ Generated " + newEvents.size() + " new payment event(s)");
                     // Save new events
@@ -128,12 +165,124 @@ public class PaymentQueryService {
         }
     }
     
-    private Map<String, Object> buildPaymentResponse(List<Map<String, Object>> schedules,
-                                                     List<Map<String, Object>> events) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("payment_schedules", schedules);
-        response.put("payment_events", events);
-        return response;
+    /**
+     * Streaming variant of getPaymentEvents for wide date ranges.
+     * 
+     * Missing events are generated and saved here (same rules as getPaymentEvents, decided
+     * from a count instead of loading the range). The returned body then reads the range in
+     * keyset-paged chunks of app.payments.stream-chunk-size, each in its own short read-only
+     * transaction, and writes every chunk after its transaction has ended, so memory stays flat
+     * and a slow client never holds a pooled connection.
+     */
+    @Transactional
+    public StreamingResponseBody streamPaymentEvents(String studentIdStr,
+                                                     LocalDate startDate,
+                                                     LocalDate endDate,
+                                                     Integer maximumCount,
+                                                     boolean ndjson) {
+        List<PaymentScheduleInfo> formattedSchedules;
+        UUID studentId;
+        try {
+            System.out.println("📡 Streaming payment events for student " + studentIdStr + " (" + startDate + " → " + endDate + ", ndjson=" + ndjson + ")");
+            
+            studentId = UUID.fromString(studentIdStr);
+            studentRepository.findById(studentId)
+                .orElseThrow(() -> new RuntimeException("Student not found with ID: " + studentIdStr));
+            
+            List<PaymentSchedule> paymentSchedules = paymentScheduleRepository.findByStudentId(studentId);
+            formattedSchedules = formatPaymentSchedules(paymentSchedules);
+            
+            generateMissingPaymentEvents(studentId, paymentSchedules, startDate, endDate, maximumCount);
+        } catch (Exception e) {
+            System.err.println("❌ Error getting payment events: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to get payment events: " + e.getMessage(), e);
+        }
+        
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                if (ndjson) {
+                    generator.setRootValueSeparator(new SerializedString("\n"));
+                    generator.writeObject(Collections.singletonMap("payment_schedules", formattedSchedules));
+                } else {
+                    generator.writeStartObject();
+                    generator.writeFieldName("payment_schedules");
+                    generator.writeObject(formattedSchedules);
+                    generator.writeArrayFieldStart("payment_events");
+                }
+                generator.flush();
+                
+                // Keyset-paged reads, each in its own short transaction; writing to a slow
+                // client happens between them, so no connection is held while it drains
+                long written = 0;
+                LocalDate afterDueDate = startDate;
+                UUID afterId = FIRST_KEY;
+                while (maximumCount == null || written < maximumCount) {
+                    int limit = maximumCount == null ? streamChunkSize : (int) Math.min(streamChunkSize, maximumCount - written);
+                    LocalDate chunkAfterDueDate = afterDueDate;
+                    UUID chunkAfterId = afterId;
+                    List<PaymentEvent> chunk = readOnlyTransactionTemplate.execute(status ->
+                        paymentEventRepository.findPageAfter(studentId, chunkAfterDueDate, chunkAfterId, endDate, PageRequest.of(0, limit))
+                    );
+                    for (PaymentEvent event : chunk) {
+                        generator.writeObject(formatSinglePaymentEvent(event));
+                    }
+                    generator.flush();
+                    written += chunk.size();
+                    if (chunk.size() < limit) {
+                        break;
+                    }
+                    PaymentEvent last = chunk.get(chunk.size() - 1);
+                    afterDueDate = last.getDueDate();
+                    afterId = last.getId();
+                }
+                
+                if (!ndjson) {
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                } else {
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+                System.out.println("✅ Streamed " + written + " payment event(s)");
+            }
+        };
+    }
+    
+    PaymentEventsResponse buildPaymentResponse(List<PaymentScheduleInfo> schedules,
+                                                       List<PaymentEventInfo> events) {
+        return new PaymentEventsResponse(schedules, events);
+    }
+    
+    /**
+     * Generate and save the student's missing events in the range, with the same rules as
+     * getPaymentEvents but decided from a count instead of loading the range. Must run inside a
+     * read-write transaction (streamPaymentEvents, the parent dashboard).
+     */
+    void generateMissingPaymentEvents(UUID studentId,
+                                      List<PaymentSchedule> paymentSchedules,
+                                      LocalDate startDate,
+                                      LocalDate endDate,
+                                      Integer maximumCount) {
+        long existingCount = paymentEventRepository.countByStudentIdAndDueDateBetween(studentId, startDate, endDate);
+        boolean shouldGenerate;
+        if (existingCount == 0) {
+            shouldGenerate = true;
+        } else {
+            LocalDate latestDueDate = paymentEventRepository.findLatestDueDateInRange(studentId, startDate, endDate);
+            shouldGenerate = (maximumCount == null || existingCount < maximumCount)
+                && latestDueDate != null && !latestDueDate.isAfter(endDate);
+        }
+        
+        if (shouldGenerate) {
+            List<PaymentEvent> newEvents = generatePaymentEventsFromSchedules(
+                paymentSchedules, studentId, startDate, endDate, maximumCount
+            );
+            if (!newEvents.isEmpty()) {
+                paymentEventRepository.saveAll(newEvents);
+                System.out.println("✅ Generated " + newEvents.size() + " new payment event(s)");
+            }
+        }
     }
     
     /**
@@ -219,17 +368,17 @@ public class PaymentQueryService {
         return newEvents;
     }
     
-    private List<Map<String, Object>> formatPaymentSchedules(List<PaymentSchedule> schedules) {
-        List<Map<String, Object>> result = new ArrayList<>();
+    List<PaymentScheduleInfo> formatPaymentSchedules(List<PaymentSchedule> schedules) {
+        List<PaymentScheduleInfo> result = new ArrayList<>(schedules.size());
         for (PaymentSchedule schedule : schedules) {
-            Map<String, Object> scheduleData = new HashMap<>();
-            scheduleData.put("id", schedule.getId() != null ? schedule.getId().toString() : null);
-            scheduleData.put("billing_rrule", schedule.getBillingRule());
-            scheduleData.put("startDate", schedule.getStartDate() != null ? schedule.getStartDate().toString() : null);
-            scheduleData.put("amount", schedule.getAmount());
-            scheduleData.put("item", schedule.getItem());
-            scheduleData.put("note", schedule.getNote());
-            result.add(scheduleData);
+            result.add(new PaymentScheduleInfo(
+                schedule.getId(),
+                schedule.getBillingRule(),
+                schedule.getStartDate(),
+                schedule.getAmount(),
+                schedule.getItem(),
+                schedule.getNote()
+            ));
         }
         return result;
     }
@@ -237,10 +386,10 @@ public class PaymentQueryService {
     /**
      * Calculate due dates from billing_rrule (RRULE format)
      */
-    private List<LocalDate> calculateDueDatesFromRRULE(String billingRule,
-                                                        LocalDate scheduleStartDate,
-                                                        LocalDate startDate,
-                                                        LocalDate endDate) {
+    List<LocalDate> calculateDueDatesFromRRULE(String billingRule,
+                                                LocalDate scheduleStartDate,
+                                                LocalDate startDate,
+                                                LocalDate endDate) {
         List<LocalDate> dueDates = new ArrayList<>();
         
         // Use effective start date (max of schedule start and requested start)
@@ -279,8 +428,6 @@ public class PaymentQueryService {
                 freq = "MONTHLY"; // Default for payments
             }
             
-            System.out.println("📅 Parsed RRULE - FREQ: " + freq + ", INTERVAL: " + interval + ", BYDAY: " + byDay + ", BYMONTHDAY: " + byMonthDay);
-            
             LocalDate currentDate = effectiveStartDate;
             
             switch (freq) {
@@ -298,9 +445,6 @@ public class PaymentQueryService {
                     if (targetDay == null) {
                         // If no BYDAY specified, use the start date's day of week
                         targetDay = scheduleStartDate.getDayOfWeek();
-                        System.out.println("ℹ️ No BYDAY specified in RRULE, using schedule start date day: " + targetDay);
-                    } else {
-                        System.out.println("✅ Target day from BYDAY: " + targetDay);
                     }
                     
                     // Find first occurrence of target day on or after scheduleStartDate
@@ -417,31 +561,16 @@ public class PaymentQueryService {
     /**
      * Format payment events for response
      */
-    private List<Map<String, Object>> formatPaymentEvents(List<PaymentEvent> events) {
-        List<Map<String, Object>> result = new ArrayList<>();
-        
+    List<PaymentEventInfo> formatPaymentEvents(List<PaymentEvent> events) {
+        List<PaymentEventInfo> result = new ArrayList<>(events.size());
         for (PaymentEvent event : events) {
-            Map<String, Object> eventData = new HashMap<>();
-            eventData.put("paymentEventId", event.getId().toString());
-            eventData.put("item", event.getItem());
-            eventData.put("amount", event.getAmount());
-            
-            // Map status: 'paid' -> 'PAID', others -> 'UNPAID'
-            String status = "paid".equalsIgnoreCase(event.getStatus()) ? "PAID" : "UNPAID";
-            eventData.put("status", status);
-            
-            eventData.put("dueDate", event.getDueDate().toString());
-            eventData.put("paidDate", event.getPaidDate() != null ? event.getPaidDate().toString() : null);
-            eventData.put("note", event.getNote());
-            
-            result.add(eventData);
+            result.add(formatSinglePaymentEvent(event));
         }
-        
         return result;
     }
     
     @Transactional
-    public Map<String, Object> updatePaymentEventStatus(String paymentEventIdStr, String status) {
+    public PaymentEventInfo updatePaymentEventStatus(String paymentEventIdStr, String status) {
         try {
             System.out.println("========================================");
             System.out.println("💰 Updating payment event status:");
@@ -473,6 +602,7 @@ public class PaymentQueryService {
             
             // Save the updated event
             PaymentEvent updatedEvent = paymentEventRepository.save(paymentEvent);
+            dataVersionService.bumpStudent(updatedEvent.getStudentId());
             
             System.out.println("✅ Payment event updated successfully");
             System.out.println("========================================");
@@ -490,21 +620,19 @@ public class PaymentQueryService {
     /**
      * Format a single payment event for response
      */
-    private Map<String, Object> formatSinglePaymentEvent(PaymentEvent event) {
-        Map<String, Object> eventData = new HashMap<>();
-        eventData.put("paymentEventId", event.getId().toString());
-        eventData.put("item", event.getItem());
-        eventData.put("amount", event.getAmount());
-        
+    private PaymentEventInfo formatSinglePaymentEvent(PaymentEvent event) {
         // Map status: 'paid' -> 'PAID', others -> 'UNPAID'
         String status = "paid".equalsIgnoreCase(event.getStatus()) ? "PAID" : "UNPAID";
-        eventData.put("status", status);
-        
-        eventData.put("dueDate", event.getDueDate().toString());
-        eventData.put("paidDate", event.getPaidDate() != null ? event.getPaidDate().toString() : null);
-        eventData.put("note", event.getNote());
         
-        return eventData;
+        return new PaymentEventInfo(
+            event.getId(),
+            event.getItem(),
+            event.getAmount(),
+            status,
+            event.getDueDate(),
+            event.getPaidDate(),
+            event.getNote()
+        );
     }
     
     @Transactional
@@ -546,6 +674,7 @@ public class PaymentQueryService {
             
             // Delete schedule (existing past payment events remain for record keeping)
             paymentScheduleRepository.delete(schedule);
+            dataVersionService.bumpStudent(studentId);
             System.out.println("✅ Payment schedule deleted successfully");
             System.out.println("========================================");
             
@@ -598,6 +727,7 @@ public class PaymentQueryService {
             
             // Delete payment event
             paymentEventRepository.delete(paymentEvent);
+            dataVersionService.bumpStudent(studentId);
             System.out.println("✅ Payment event deleted successfully");
             System.out.println("========================================");
             
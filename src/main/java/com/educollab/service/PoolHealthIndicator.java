@@ -0,0 +1,193 @@
+package com.educollab.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Readiness and liveness from Hikari pool saturation.
+ *
+ * A scheduled sampler reads the pool MXBean (threads waiting for a connection, active/total
+ * connections) and the mean connection acquire time since the previous sample from the
+ * hikaricp.connections.acquire timer. Probes only read the last sample, so they never touch
+ * the database.
+ *
+ * - Readiness goes REFUSING_TRAFFIC when pending threads or acquire time cross their limits,
+ *   and back to ACCEPTING_TRAFFIC after recover-samples healthy samples in a row. /health
+ *   and /actuator/health/readiness follow it, so the load balancer routes around the instance.
+ * - Liveness goes BROKEN when every connection has been busy with threads waiting for longer
+ *   than liveness-stuck-ms (stuck or leaked connections; leak detection fires at 60s), so the
+ *   platform restarts the instance.
+ *
+ * Nothing changes before the warm-up has finished and the application is ready.
+ */
+@Component
+public class PoolHealthIndicator implements HealthIndicator {
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Value("${app.health.max-pending-threads:4}")
+    private int maxPendingThreads;
+    
+    @Value("${app.health.max-acquire-ms:500}")
+    private long maxAcquireMs;
+    
+    @Value("${app.health.recover-samples:3}")
+    private int recoverSamples;
+    
+    @Value("${app.health.liveness-stuck-ms:180000}")
+    private long livenessStuckMs;
+    
+    private HikariDataSource hikariDataSource;
+    
+    private volatile Sample lastSample;
+    
+    private volatile boolean applicationReady;
+    
+    private volatile boolean refusing;
+    
+    private int healthySamplesInARow;
+    
+    private long saturatedSince;
+    
+    private long lastAcquireCount;
+    
+    private double lastAcquireTotalMs;
+    
+    @PostConstruct
+    void init() {
+        try {
+            hikariDataSource = dataSource.unwrap(HikariDataSource.class);
+        } catch (Exception e) {
+            System.err.println("⚠️ Pool health: DataSource is not Hikari, probes will not track the pool");
+        }
+        System.out.println("🩺 Pool health: maxPendingThreads=" + maxPendingThreads + ", maxAcquireMs=" + maxAcquireMs +
+                          ", livenessStuckMs=" + livenessStuckMs);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        applicationReady = true;
+    }
+    
+    @Scheduled(fixedDelayString = "${app.health.sample-interval-ms:1000}")
+    public void sample() {
+        if (hikariDataSource == null) {
+            return;
+        }
+        HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return;
+        }
+        
+        Sample sample = new Sample(
+            pool.getThreadsAwaitingConnection(),
+            pool.getActiveConnections(),
+            pool.getTotalConnections(),
+            hikariDataSource.getMaximumPoolSize(),
+            meanAcquireMsSinceLastSample()
+        );
+        lastSample = sample;
+        
+        if (!applicationReady) {
+            return;
+        }
+        updateReadiness(sample);
+        updateLiveness(sample);
+    }
+    
+    private void updateReadiness(Sample sample) {
+        boolean overloaded = sample.pending > maxPendingThreads || sample.acquireMs > maxAcquireMs;
+        if (overloaded) {
+            healthySamplesInARow = 0;
+            if (!refusing) {
+                refusing = true;
+                System.err.println("⚠️ Pool saturated (" + sample + "), readiness -> REFUSING_TRAFFIC");
+                AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+            }
+        } else if (refusing && ++healthySamplesInARow >= recoverSamples) {
+            refusing = false;
+            System.out.println("✅ Pool recovered (" + sample + "), readiness -> ACCEPTING_TRAFFIC");
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+    
+    private void updateLiveness(Sample sample) {
+        boolean exhausted = sample.pending > 0 && sample.active >= sample.max;
+        if (!exhausted) {
+            saturatedSince = 0;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (saturatedSince == 0) {
+            saturatedSince = now;
+        } else if (now - saturatedSince >= livenessStuckMs) {
+            System.err.println("❌ All pool connections busy for " + (now - saturatedSince) + " ms (" + sample + "), liveness -> BROKEN");
+            AvailabilityChangeEvent.publish(eventPublisher, this, LivenessState.BROKEN);
+            saturatedSince = now;
+        }
+    }
+    
+    private double meanAcquireMsSinceLastSample() {
+        Timer timer = meterRegistry.find("hikaricp.connections.acquire")
+            .tag("pool", hikariDataSource.getPoolName())
+            .timer();
+        if (timer == null) {
+            return 0;
+        }
+        long count = timer.count();
+        double totalMs = timer.totalTime(TimeUnit.MILLISECONDS);
+        long deltaCount = count - lastAcquireCount;
+        double deltaMs = totalMs - lastAcquireTotalMs;
+        lastAcquireCount = count;
+        lastAcquireTotalMs = totalMs;
+        return deltaCount > 0 ? deltaMs / deltaCount : 0;
+    }
+    
+    @Override
+    public Health health() {
+        Sample sample = lastSample;
+        if (sample == null) {
+            return Health.unknown().build();
+        }
+        Health.Builder builder = refusing ? Health.outOfService() : Health.up();
+        return builder
+            .withDetail("pending", sample.pending)
+            .withDetail("active", sample.active)
+            .withDetail("total", sample.total)
+            .withDetail("max", sample.max)
+            .withDetail("acquireMs", Math.round(sample.acquireMs * 10) / 10.0)
+            .build();
+    }
+    
+    private record Sample(int pending, int active, int total, int max, double acquireMs) {
+        @Override
+        public String toString() {
+            return "pending=" + pending + ", active=" + active + "/" + max + ", acquireMs=" + String.format("%.1f", acquireMs);
+        }
+    }
+}
@@ -1,20 +1,39 @@
 package com.educollab.service;
 
+import com.educollab.dto.FreeSlot;
+import com.educollab.dto.ScheduleExceptionBatchRequest;
+import com.educollab.dto.ScheduleExceptionRequest;
+import com.educollab.model.Course;
+import com.educollab.model.Enrollment;
 import com.educollab.model.Schedule;
 import com.educollab.model.ScheduleException;
+import com.educollab.repository.CourseRepository;
+import com.educollab.repository.EnrollmentRepository;
 import com.educollab.repository.ScheduleExceptionRepository;
 import com.educollab.repository.ScheduleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -26,13 +45,71 @@ public class ScheduleService {
     @Autowired
     private ScheduleExceptionRepository scheduleExceptionRepository;
     
+    @Autowired
+    private DataVersionService dataVersionService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private CourseRepository courseRepository;
+    
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+    
+    @Autowired
+    private BookingIndex bookingIndex;
+    
+    @Autowired
+    private StudentTimetableCache studentTimetableCache;
+    
+    @Autowired
+    private ClassOccurrenceProjection classOccurrenceProjection;
+    
+    @Value("${app.schedule-exceptions.max-batch-size:500}")
+    private int maxBatchSize;
+    
+    @Value("${app.free-slots.day-start:08:00}")
+    private String freeSlotsDayStart;
+    
+    @Value("${app.free-slots.day-end:21:00}")
+    private String freeSlotsDayEnd;
+    
+    @Value("${app.free-slots.step-minutes:15}")
+    private int freeSlotsStepMinutes;
+    
+    @Value("${app.free-slots.max-days:31}")
+    private int freeSlotsMaxDays;
+    
+    private static final String UPSERT_EXCEPTION_SQL =
+        "INSERT INTO schedule_exceptions (schedule_id, original_date, original_start_time, is_cancelled, " +
+        "new_date, new_start_time, new_duration_minutes, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, NOW()) " +
+        "ON CONFLICT (schedule_id, original_date, original_start_time) DO UPDATE SET " +
+        "is_cancelled = EXCLUDED.is_cancelled, new_date = EXCLUDED.new_date, " +
+        "new_start_time = EXCLUDED.new_start_time, new_duration_minutes = EXCLUDED.new_duration_minutes " +
+        "RETURNING id, created_at";
+    
+    // Same upsert for a whole batch: parallel arrays unnested into rows, one statement
+    private static final String UPSERT_EXCEPTIONS_BATCH_SQL =
+        "INSERT INTO schedule_exceptions (schedule_id, original_date, original_start_time, is_cancelled, " +
+        "new_date, new_start_time, new_duration_minutes, created_at) " +
+        "SELECT schedule_id, original_date, original_start_time, is_cancelled, new_date, new_start_time, " +
+        "new_duration_minutes, NOW() " +
+        "FROM unnest(?::uuid[], ?::text[]::date[], ?::text[]::time[], ?::boolean[], ?::text[]::date[], " +
+        "?::text[]::time[], ?::bigint[]) AS batch(schedule_id, original_date, original_start_time, is_cancelled, " +
+        "new_date, new_start_time, new_duration_minutes) " +
+        "ON CONFLICT (schedule_id, original_date, original_start_time) DO UPDATE SET " +
+        "is_cancelled = EXCLUDED.is_cancelled, new_date = EXCLUDED.new_date, " +
+        "new_start_time = EXCLUDED.new_start_time, new_duration_minutes = EXCLUDED.new_duration_minutes " +
+        "RETURNING id, schedule_id, original_date, original_start_time, (xmax = 0) AS inserted";
+    
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ISO_LOCAL_TIME;
     
     @Transactional(rollbackFor = Exception.class)
-    public Map<String, Object> createScheduleException(Map<String, Object> request) {
+    public Map<String, Object> createScheduleException(ScheduleExceptionRequest request) {
         try {
-            String scheduleIdStr = (String) request.get("schedule_id");
+            String scheduleIdStr = request.scheduleId();
             if (scheduleIdStr == null || scheduleIdStr.isEmpty()) {
                 throw new RuntimeException("schedule_id is required");
             }
@@ -41,127 +118,518 @@ public class ScheduleService {
             Schedule schedule = scheduleRepository.findById(scheduleId)
                 .orElseThrow(() -> new RuntimeException("Schedule not found with ID: " + scheduleIdStr));
             
-            LocalDate baseOriginalDate = schedule.getStartDate();
-            LocalTime baseOriginalStartTime = schedule.getStartTime();
-            Long baseDuration = schedule.getDurationMinutes();
+            ExceptionChange change = parseChange(request, schedule);
+            LocalDate requestedOriginalDate = change.originalDate();
+            LocalTime requestedOriginalStartTime = change.originalStartTime();
             
-            LocalDate requestedOriginalDate = request.get("original_date") != null
-                ? LocalDate.parse(request.get("original_date").toString(), DATE_FORMAT)
-                : baseOriginalDate;
+            // Attempt to locate existing exception by original occurrence
+            boolean existing = scheduleExceptionRepository
+                .existsByScheduleIdAndOriginalDateAndOriginalStartTime(scheduleId, requestedOriginalDate, requestedOriginalStartTime);
             
-            LocalTime requestedOriginalStartTime = request.get("original_start_time") != null
-                ? LocalTime.parse(request.get("original_start_time").toString(), TIME_FORMAT)
-                : baseOriginalStartTime;
+            // Key of the row to write: the supplied original occurrence, or the original occurrence
+            // of an exception that already moved the session here
+            LocalDate keyOriginalDate = requestedOriginalDate;
+            LocalTime keyOriginalStartTime = requestedOriginalStartTime;
+            if (!existing) {
+                ScheduleException moved = findExceptionByNewOccurrence(scheduleId, requestedOriginalDate, requestedOriginalStartTime);
+                if (moved != null) {
+                    keyOriginalDate = moved.getOriginalDate();
+                    keyOriginalStartTime = moved.getOriginalStartTime();
+                }
+            }
             
-            Boolean isCancelled = request.get("is_cancelled") != null ? (Boolean) request.get("is_cancelled") : false;
+            ScheduleException savedException = upsertException(scheduleId, keyOriginalDate, keyOriginalStartTime,
+                                                               change.isCancelled(), change.newDate(), change.newStartTime(),
+                                                               change.newDurationMinutes());
+            dataVersionService.bumpCourse(schedule.getCourseId());
+            classOccurrenceProjection.refreshCourses(List.of(schedule.getCourseId()));
             
-            LocalDate newDate = null;
-            if (request.get("new_date") != null && !request.get("new_date").toString().isEmpty()) {
-                newDate = LocalDate.parse(request.get("new_date").toString(), DATE_FORMAT);
-            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Schedule exception recorded successfully");
             
-            LocalTime newStartTime = null;
-            if (request.get("new_start_time") != null && !request.get("new_start_time").toString().isEmpty()) {
-                newStartTime = LocalTime.parse(request.get("new_start_time").toString(), TIME_FORMAT);
-            }
+            Map<String, Object> data = new HashMap<>();
+            data.put("scheduleExceptionId", savedException.getId().toString());
+            data.put("scheduleId", savedException.getScheduleId().toString());
+            data.put("originalDate", savedException.getOriginalDate().toString());
+            data.put("originalStartTime", savedException.getOriginalStartTime().toString());
+            data.put("isCancelled", savedException.getIsCancelled());
+            data.put("newDate", savedException.getNewDate() != null ? savedException.getNewDate().toString() : null);
+            data.put("newStartTime", savedException.getNewStartTime() != null ? savedException.getNewStartTime().toString() : null);
+            data.put("newDurationMinutes", savedException.getNewDurationMinutes());
+            response.put("data", data);
             
-            Long newDurationMinutes = null;
-            if (request.get("new_duration_minutes") != null) {
-                Object durationObj = request.get("new_duration_minutes");
-                if (durationObj instanceof Number) {
-                    newDurationMinutes = ((Number) durationObj).longValue();
-                } else if (!durationObj.toString().isEmpty()) {
-                    newDurationMinutes = Long.parseLong(durationObj.toString());
-                }
+            return response;
+            
+        } catch (Exception e) {
+            System.err.println("❌ Error creating schedule exception: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to create schedule exception: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Record many exceptions in one transaction (POST /api/v1/schedules/exceptions/batch).
+     *
+     * Schedules are loaded with one findAllById, existing exceptions (by original or moved
+     * occurrence) with one IN query, and every row is written by one INSERT ... ON CONFLICT over
+     * unnested arrays. Invalid items and items repeating an occurrence of the same batch get a
+     * failed result of their own; the rest are still recorded.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public Map<String, Object> createScheduleExceptions(ScheduleExceptionBatchRequest request) {
+        try {
+            List<ScheduleExceptionRequest> items = request.exceptions();
+            if (items == null || items.isEmpty()) {
+                throw new RuntimeException("exceptions cannot be empty");
+            }
+            if (items.size() > maxBatchSize) {
+                throw new RuntimeException("A batch cannot exceed " + maxBatchSize + " exceptions");
             }
             
-            boolean hasMeaningfulChange = Boolean.TRUE.equals(isCancelled);
-            if (newDate != null && !newDate.equals(requestedOriginalDate)) {
-                hasMeaningfulChange = true;
+            // Step 1: Load every referenced schedule at once
+            Set<UUID> scheduleIds = new HashSet<>();
+            for (ScheduleExceptionRequest item : items) {
+                UUID scheduleId = parseUuidOrNull(item.scheduleId());
+                if (scheduleId != null) {
+                    scheduleIds.add(scheduleId);
+                }
             }
-            if (newStartTime != null && !newStartTime.equals(requestedOriginalStartTime)) {
-                hasMeaningfulChange = true;
+            Map<UUID, Schedule> schedules = new HashMap<>();
+            for (Schedule schedule : scheduleRepository.findAllById(scheduleIds)) {
+                schedules.put(schedule.getId(), schedule);
             }
-            if (newDurationMinutes != null && !newDurationMinutes.equals(baseDuration)) {
-                hasMeaningfulChange = true;
+            
+            // Step 2: Validate each item on its own
+            List<Map<String, Object>> results = new ArrayList<>(items.size());
+            List<ExceptionChange> changes = new ArrayList<>(items.size());
+            Set<LocalDate> dates = new HashSet<>();
+            for (int i = 0; i < items.size(); i++) {
+                ScheduleExceptionRequest item = items.get(i);
+                results.add(null);
+                changes.add(null);
+                try {
+                    UUID scheduleId = parseUuidOrNull(item.scheduleId());
+                    if (scheduleId == null) {
+                        throw new RuntimeException("schedule_id is required and must be a UUID");
+                    }
+                    Schedule schedule = schedules.get(scheduleId);
+                    if (schedule == null) {
+                        throw new RuntimeException("Schedule not found with ID: " + item.scheduleId());
+                    }
+                    ExceptionChange change = parseChange(item, schedule);
+                    changes.set(i, change);
+                    dates.add(change.originalDate());
+                } catch (Exception e) {
+                    results.set(i, failedItem(i, item, e.getMessage()));
+                }
             }
             
-            if (!hasMeaningfulChange) {
-                throw new RuntimeException("No changes detected. Provide updated fields or set is_cancelled to true.");
+            // Step 3: Resolve existing exceptions with one IN query
+            Set<String> originalKeys = new HashSet<>();
+            Map<String, ScheduleException> movedByOccurrence = new HashMap<>();
+            if (!dates.isEmpty()) {
+                for (ScheduleException exception : scheduleExceptionRepository
+                        .findByScheduleIdInAndOccurrenceDateIn(schedules.keySet(), dates)) {
+                    originalKeys.add(occurrenceKey(exception.getScheduleId(), exception.getOriginalDate(), exception.getOriginalStartTime()));
+                    if (exception.getNewDate() != null) {
+                        LocalTime movedStart = exception.getNewStartTime() != null
+                            ? exception.getNewStartTime()
+                            : exception.getOriginalStartTime();
+                        movedByOccurrence.putIfAbsent(occurrenceKey(exception.getScheduleId(), exception.getNewDate(), movedStart), exception);
+                    }
+                }
             }
             
-            // Attempt to locate existing exception by original occurrence
-            Optional<ScheduleException> existingOpt = scheduleExceptionRepository
-                .findByScheduleIdAndOriginalDateAndOriginalStartTime(scheduleId, requestedOriginalDate, requestedOriginalStartTime);
-            
-            ScheduleException exception;
-            if (existingOpt.isPresent()) {
-                exception = existingOpt.get();
-            } else {
-                // Try to locate exception by matching new values (already rescheduled occurrence)
-                exception = findExceptionByNewOccurrence(scheduleId, requestedOriginalDate, requestedOriginalStartTime);
-                if (exception == null) {
-                    // Create new exception anchored on the supplied original occurrence
-                    exception = new ScheduleException(scheduleId, requestedOriginalDate, requestedOriginalStartTime);
+            // Step 4: Key every change by the original occurrence of the row it writes
+            List<ExceptionChange> rows = new ArrayList<>();
+            Map<String, Integer> itemByKey = new HashMap<>();
+            for (int i = 0; i < changes.size(); i++) {
+                ExceptionChange change = changes.get(i);
+                if (change == null) {
+                    continue;
+                }
+                UUID scheduleId = change.schedule().getId();
+                String key = occurrenceKey(scheduleId, change.originalDate(), change.originalStartTime());
+                if (!originalKeys.contains(key)) {
+                    ScheduleException moved = movedByOccurrence.get(key);
+                    if (moved != null) {
+                        change = new ExceptionChange(change.schedule(), moved.getOriginalDate(), moved.getOriginalStartTime(),
+                                                     change.isCancelled(), change.newDate(), change.newStartTime(),
+                                                     change.newDurationMinutes());
+                        key = occurrenceKey(scheduleId, change.originalDate(), change.originalStartTime());
+                    }
+                }
+                // ON CONFLICT cannot touch the same row twice in one statement
+                if (itemByKey.containsKey(key)) {
+                    results.set(i, failedItem(i, items.get(i), "Duplicate of item " + itemByKey.get(key) + " in this batch"));
+                    continue;
                 }
+                itemByKey.put(key, i);
+                rows.add(change);
             }
             
-            exception.setIsCancelled(isCancelled);
-            exception.setNewDate(newDate);
-            exception.setNewStartTime(newStartTime);
-            exception.setNewDurationMinutes(newDurationMinutes);
-            if (exception.getCreatedAt() == null) {
-                exception.setCreatedAt(java.time.LocalDateTime.now());
+            // Step 5: One upsert for all rows, then one data-version bump per course
+            int created = 0;
+            int updated = 0;
+            if (!rows.isEmpty()) {
+                for (Map<String, Object> row : upsertExceptions(rows)) {
+                    String key = occurrenceKey((UUID) row.get("scheduleId"), (LocalDate) row.get("originalDate"),
+                                               (LocalTime) row.get("originalStartTime"));
+                    int index = itemByKey.get(key);
+                    boolean inserted = (Boolean) row.get("inserted");
+                    if (inserted) {
+                        created++;
+                    } else {
+                        updated++;
+                    }
+                    results.set(index, recordedItem(index, changes.get(index), row, inserted));
+                }
+                Set<UUID> courseIds = new LinkedHashSet<>();
+                for (ExceptionChange change : rows) {
+                    courseIds.add(change.schedule().getCourseId());
+                }
+                for (UUID courseId : courseIds) {
+                    dataVersionService.bumpCourse(courseId);
+                }
+                classOccurrenceProjection.refreshCourses(courseIds);
             }
             
-            ScheduleException savedException = scheduleExceptionRepository.save(exception);
+            int failed = items.size() - created - updated;
+            System.out.println("✅ Batch schedule exceptions: " + created + " created, " + updated + " updated, " +
+                              failed + " failed of " + items.size());
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("message", "Schedule exception recorded successfully");
+            response.put("message", (created + updated) + " of " + items.size() + " schedule exception(s) recorded");
             
             Map<String, Object> data = new HashMap<>();
-            data.put("scheduleExceptionId", savedException.getId().toString());
-            data.put("scheduleId", savedException.getScheduleId().toString());
-            data.put("originalDate", savedException.getOriginalDate().toString());
-            data.put("originalStartTime", savedException.getOriginalStartTime().toString());
-            data.put("isCancelled", savedException.getIsCancelled());
-            data.put("newDate", savedException.getNewDate() != null ? savedException.getNewDate().toString() : null);
-            data.put("newStartTime", savedException.getNewStartTime() != null ? savedException.getNewStartTime().toString() : null);
-            data.put("newDurationMinutes", savedException.getNewDurationMinutes());
+            data.put("created", created);
+            data.put("updated", updated);
+            data.put("failed", failed);
+            data.put("results", results);
             response.put("data", data);
             
             return response;
             
         } catch (Exception e) {
-            System.err.println("❌ Error creating schedule exception: " + e.getMessage());
+            System.err.println("❌ Error creating schedule exceptions: " + e.getMessage());
             e.printStackTrace();
-            throw new RuntimeException("Failed to create schedule exception: " + e.getMessage(), e);
+            throw new RuntimeException("Failed to create schedule exceptions: " + e.getMessage(), e);
         }
     }
     
-    private ScheduleException findExceptionByNewOccurrence(UUID scheduleId,
-                                                            LocalDate occurrenceDate,
-                                                            LocalTime occurrenceStartTime) {
-        List<ScheduleException> exceptions = scheduleExceptionRepository.findByScheduleId(scheduleId);
-        for (ScheduleException candidate : exceptions) {
-            if (candidate.getNewDate() == null) {
-                continue;
-            }
-            if (!candidate.getNewDate().equals(occurrenceDate)) {
-                continue;
-            }
-            LocalTime candidateNewStart = candidate.getNewStartTime();
-            boolean timeMatches;
-            if (candidateNewStart != null) {
-                timeMatches = candidateNewStart.equals(occurrenceStartTime);
-            } else {
-                timeMatches = candidate.getOriginalStartTime().equals(occurrenceStartTime);
+    private List<Map<String, Object>> upsertExceptions(List<ExceptionChange> rows) {
+        int size = rows.size();
+        UUID[] scheduleIds = new UUID[size];
+        String[] originalDates = new String[size];
+        String[] originalStartTimes = new String[size];
+        Boolean[] cancelled = new Boolean[size];
+        String[] newDates = new String[size];
+        String[] newStartTimes = new String[size];
+        Long[] newDurations = new Long[size];
+        for (int i = 0; i < size; i++) {
+            ExceptionChange row = rows.get(i);
+            scheduleIds[i] = row.schedule().getId();
+            originalDates[i] = row.originalDate().toString();
+            originalStartTimes[i] = row.originalStartTime().toString();
+            cancelled[i] = row.isCancelled();
+            newDates[i] = row.newDate() != null ? row.newDate().toString() : null;
+            newStartTimes[i] = row.newStartTime() != null ? row.newStartTime().toString() : null;
+            newDurations[i] = row.newDurationMinutes();
+        }
+        
+        return jdbcTemplate.query((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(UPSERT_EXCEPTIONS_BATCH_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid", scheduleIds));
+            statement.setArray(2, connection.createArrayOf("text", originalDates));
+            statement.setArray(3, connection.createArrayOf("text", originalStartTimes));
+            statement.setArray(4, connection.createArrayOf("bool", cancelled));
+            statement.setArray(5, connection.createArrayOf("text", newDates));
+            statement.setArray(6, connection.createArrayOf("text", newStartTimes));
+            statement.setArray(7, connection.createArrayOf("int8", newDurations));
+            return statement;
+        }, (rs, rowNum) -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", rs.getObject("id", UUID.class));
+            row.put("scheduleId", rs.getObject("schedule_id", UUID.class));
+            row.put("originalDate", rs.getObject("original_date", LocalDate.class));
+            row.put("originalStartTime", rs.getObject("original_start_time", LocalTime.class));
+            row.put("inserted", rs.getBoolean("inserted"));
+            return row;
+        });
+    }
+    
+    private Map<String, Object> recordedItem(int index, ExceptionChange change, Map<String, Object> row, boolean inserted) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("index", index);
+        result.put("success", true);
+        result.put("action", inserted ? "created" : "updated");
+        result.put("scheduleExceptionId", row.get("id").toString());
+        result.put("scheduleId", row.get("scheduleId").toString());
+        result.put("originalDate", row.get("originalDate").toString());
+        result.put("originalStartTime", row.get("originalStartTime").toString());
+        result.put("isCancelled", change.isCancelled());
+        result.put("newDate", change.newDate() != null ? change.newDate().toString() : null);
+        result.put("newStartTime", change.newStartTime() != null ? change.newStartTime().toString() : null);
+        result.put("newDurationMinutes", change.newDurationMinutes());
+        return result;
+    }
+    
+    private Map<String, Object> failedItem(int index, ScheduleExceptionRequest item, String message) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("index", index);
+        result.put("success", false);
+        result.put("scheduleId", item.scheduleId());
+        result.put("originalDate", item.originalDate());
+        result.put("message", message);
+        return result;
+    }
+    
+    private static String occurrenceKey(UUID scheduleId, LocalDate date, LocalTime startTime) {
+        return scheduleId + "|" + date + "|" + startTime;
+    }
+    
+    private static UUID parseUuidOrNull(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Slots in [from, to] where a session of the schedule could be moved: free for the course's
+     * teacher, its location and every actively enrolled student (GET /api/v1/schedules/{id}/free-slots).
+     *
+     * Each participant's weekly occupancy bitmaps (5-minute slots) are laid out over the window as
+     * one BitSet per day and ORed together, students in parallel; a candidate is free when none of
+     * its bits is set. Candidates are ranked by distance from the original date (a day counts as an
+     * hour) plus distance from the usual start time, in minutes. One-off exceptions of other courses
+     * and daily/monthly schedules are not taken into account.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> findFreeSlots(String scheduleIdStr,
+                                             String fromStr,
+                                             String toStr,
+                                             String originalDateStr,
+                                             Long durationMinutes,
+                                             Integer limit) {
+        long started = System.nanoTime();
+        UUID scheduleId = UUID.fromString(scheduleIdStr);
+        Schedule schedule = scheduleRepository.findById(scheduleId)
+            .orElseThrow(() -> new RuntimeException("Schedule not found with ID: " + scheduleIdStr));
+        Course course = courseRepository.findById(schedule.getCourseId())
+            .orElseThrow(() -> new RuntimeException("Course not found with ID: " + schedule.getCourseId()));
+        
+        LocalDate from = fromStr != null && !fromStr.isEmpty() ? LocalDate.parse(fromStr, DATE_FORMAT) : LocalDate.now();
+        LocalDate to = toStr != null && !toStr.isEmpty() ? LocalDate.parse(toStr, DATE_FORMAT) : from.plusDays(13);
+        if (to.isBefore(from)) {
+            throw new RuntimeException("to must not be before from");
+        }
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > freeSlotsMaxDays) {
+            throw new RuntimeException("Date window cannot exceed " + freeSlotsMaxDays + " days");
+        }
+        long duration = durationMinutes != null ? durationMinutes
+            : schedule.getDurationMinutes() != null ? schedule.getDurationMinutes() : 60;
+        if (duration <= 0) {
+            throw new RuntimeException("durationMinutes must be positive");
+        }
+        int maxResults = limit != null && limit > 0 ? limit : 10;
+        LocalDate originalDate = originalDateStr != null && !originalDateStr.isEmpty()
+            ? LocalDate.parse(originalDateStr, DATE_FORMAT)
+            : from;
+        
+        // Load timetables on this thread (cache misses need the transaction), intersect in parallel
+        List<StudentTimetableCache.Timetable> timetables = new ArrayList<>();
+        for (Enrollment enrollment : enrollmentRepository.findByCourseId(course.getId())) {
+            if (enrollment.getStatus() == null || "active".equalsIgnoreCase(enrollment.getStatus())) {
+                timetables.add(studentTimetableCache.timetable(enrollment.getStudentId()));
             }
-            if (timeMatches) {
-                return candidate;
+        }
+        BitSet[] busy = timetables.parallelStream()
+            .map(timetable -> {
+                BitSet[] studentBusy = emptyDays(days);
+                timetable.markBusy(from, studentBusy);
+                return studentBusy;
+            })
+            .reduce(emptyDays(days), ScheduleService::orDays);
+        for (WeeklySlot slot : bookingIndex.bookedSlots(course.getInstitutionId(), course.getTeacherName(), course.getLocation())) {
+            StudentTimetableCache.markBusy(slot, StudentTimetableCache.daySlots(StudentTimetableCache.maskOf(slot), slot.day()), from, busy);
+        }
+        
+        List<FreeSlot> candidates = collectFreeSlots(busy, from, duration, originalDate, schedule.getStartTime());
+        candidates.sort(Comparator.comparingLong(FreeSlot::score)
+            .thenComparing(FreeSlot::date)
+            .thenComparing(FreeSlot::startTime));
+        List<FreeSlot> ranked = candidates.subList(0, Math.min(maxResults, candidates.size()));
+        
+        System.out.println("🔎 Free slots for schedule " + scheduleId + " (" + from + " to " + to + ", " + duration +
+                          " min, " + timetables.size() + " student(s)): " + candidates.size() + " candidate(s) in " +
+                          (System.nanoTime() - started) / 1_000_000 + " ms");
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", ranked.isEmpty() ? "No free slots in this window" : ranked.size() + " free slot(s) found");
+        
+        Map<String, Object> data = new HashMap<>();
+        data.put("scheduleId", scheduleId.toString());
+        data.put("from", from.toString());
+        data.put("to", to.toString());
+        data.put("durationMinutes", duration);
+        data.put("studentsChecked", timetables.size());
+        data.put("slots", new ArrayList<>(ranked));
+        response.put("data", data);
+        
+        return response;
+    }
+    
+    private List<FreeSlot> collectFreeSlots(BitSet[] busy,
+                                            LocalDate from,
+                                            long duration,
+                                            LocalDate originalDate,
+                                            LocalTime usualStartTime) {
+        int dayStart = minuteOfDay(LocalTime.parse(freeSlotsDayStart));
+        int dayEnd = minuteOfDay(LocalTime.parse(freeSlotsDayEnd));
+        int usualStart = usualStartTime != null ? minuteOfDay(usualStartTime) : dayStart;
+        int step = Math.max(freeSlotsStepMinutes, StudentTimetableCache.SLOT_MINUTES);
+        LocalDateTime now = LocalDateTime.now();
+        
+        List<FreeSlot> candidates = new ArrayList<>();
+        for (int i = 0; i < busy.length; i++) {
+            LocalDate date = from.plusDays(i);
+            for (int start = dayStart; start + duration <= dayEnd; start += step) {
+                LocalTime startTime = LocalTime.of(start / 60, start % 60);
+                if (!date.atTime(startTime).isAfter(now)) {
+                    continue;
+                }
+                int firstBit = start / StudentTimetableCache.SLOT_MINUTES;
+                int endBit = (int) ((start + duration + StudentTimetableCache.SLOT_MINUTES - 1) / StudentTimetableCache.SLOT_MINUTES);
+                int nextBusy = busy[i].nextSetBit(firstBit);
+                if (nextBusy != -1 && nextBusy < endBit) {
+                    continue;
+                }
+                long score = Math.abs(ChronoUnit.DAYS.between(originalDate, date)) * 60 + Math.abs(start - usualStart);
+                candidates.add(new FreeSlot(date, date.getDayOfWeek().toString(), startTime, startTime.plusMinutes(duration), score));
             }
         }
-        return null;
+        return candidates;
+    }
+    
+    private static BitSet[] emptyDays(int days) {
+        BitSet[] result = new BitSet[days];
+        for (int i = 0; i < days; i++) {
+            result[i] = new BitSet(StudentTimetableCache.SLOTS_PER_DAY);
+        }
+        return result;
+    }
+    
+    private static BitSet[] orDays(BitSet[] a, BitSet[] b) {
+        BitSet[] result = emptyDays(a.length);
+        for (int i = 0; i < a.length; i++) {
+            result[i].or(a[i]);
+            result[i].or(b[i]);
+        }
+        return result;
+    }
+    
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+    
+    /**
+     * Requested change to one occurrence; original date/time default to the schedule's first one.
+     */
+    private ExceptionChange parseChange(ScheduleExceptionRequest request, Schedule schedule) {
+        LocalDate baseOriginalDate = schedule.getStartDate();
+        LocalTime baseOriginalStartTime = schedule.getStartTime();
+        Long baseDuration = schedule.getDurationMinutes();
+        
+        LocalDate requestedOriginalDate = request.originalDate() != null
+            ? LocalDate.parse(request.originalDate(), DATE_FORMAT)
+            : baseOriginalDate;
+        
+        LocalTime requestedOriginalStartTime = request.originalStartTime() != null
+            ? LocalTime.parse(request.originalStartTime(), TIME_FORMAT)
+            : baseOriginalStartTime;
+        
+        Boolean isCancelled = request.isCancelled() != null ? request.isCancelled() : false;
+        
+        LocalDate newDate = null;
+        if (request.newDate() != null && !request.newDate().isEmpty()) {
+            newDate = LocalDate.parse(request.newDate(), DATE_FORMAT);
+        }
+        
+        LocalTime newStartTime = null;
+        if (request.newStartTime() != null && !request.newStartTime().isEmpty()) {
+            newStartTime = LocalTime.parse(request.newStartTime(), TIME_FORMAT);
+        }
+        
+        Long newDurationMinutes = request.newDurationMinutes();
+        
+        boolean hasMeaningfulChange = Boolean.TRUE.equals(isCancelled);
+        if (newDate != null && !newDate.equals(requestedOriginalDate)) {
+            hasMeaningfulChange = true;
+        }
+        if (newStartTime != null && !newStartTime.equals(requestedOriginalStartTime)) {
+            hasMeaningfulChange = true;
+        }
+        if (newDurationMinutes != null && !newDurationMinutes.equals(baseDuration)) {
+            hasMeaningfulChange = true;
+        }
+        
+        if (!hasMeaningfulChange) {
+            throw new RuntimeException("No changes detected. Provide updated fields or set is_cancelled to true.");
+        }
+        
+        return new ExceptionChange(schedule, requestedOriginalDate, requestedOriginalStartTime,
+                                   isCancelled, newDate, newStartTime, newDurationMinutes);
+    }
+    
+    private record ExceptionChange(Schedule schedule,
+                                   LocalDate originalDate,
+                                   LocalTime originalStartTime,
+                                   Boolean isCancelled,
+                                   LocalDate newDate,
+                                   LocalTime newStartTime,
+                                   Long newDurationMinutes) {}
+    
+    /**
+     * Insert or update the exception of one original occurrence in a single statement on the
+     * unique (schedule_id, original_date, original_start_time) index. Concurrent writers for
+     * the same occurrence cannot race into a duplicate-key error, and created_at is kept on update.
+     */
+    private ScheduleException upsertException(UUID scheduleId,
+                                              LocalDate originalDate,
+                                              LocalTime originalStartTime,
+                                              Boolean isCancelled,
+                                              LocalDate newDate,
+                                              LocalTime newStartTime,
+                                              Long newDurationMinutes) {
+        return jdbcTemplate.queryForObject(UPSERT_EXCEPTION_SQL, (rs, rowNum) -> {
+            ScheduleException exception = new ScheduleException();
+            exception.setId(rs.getObject("id", UUID.class));
+            exception.setScheduleId(scheduleId);
+            exception.setOriginalDate(originalDate);
+            exception.setOriginalStartTime(originalStartTime);
+            exception.setIsCancelled(isCancelled);
+            exception.setNewDate(newDate);
+            exception.setNewStartTime(newStartTime);
+            exception.setNewDurationMinutes(newDurationMinutes);
+            exception.setCreatedAt(rs.getObject("created_at", OffsetDateTime.class).toLocalDateTime());
+            return exception;
+        }, scheduleId, originalDate, originalStartTime, isCancelled, newDate, newStartTime, newDurationMinutes);
+    }
+    
+    private ScheduleException findExceptionByNewOccurrence(UUID scheduleId,
+                                                            LocalDate occurrenceDate,
+                                                            LocalTime occurrenceStartTime) {
+        List<ScheduleException> matches = scheduleExceptionRepository
+            .findByNewOccurrence(scheduleId, occurrenceDate, occurrenceStartTime);
+        return matches.isEmpty() ? null : matches.get(0);
     }
 }
@@ -0,0 +1,92 @@
+package com.educollab.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent reads into one computation.
+ *
+ * The first caller for a key (the leader) runs the loader on its own thread; callers that
+ * arrive while it is in flight wait for the same result instead of taking another pool
+ * connection and repeating the expansion. Nothing is cached: the key is released as soon as
+ * the leader finishes, so a later request always recomputes.
+ *
+ * Metrics: app.single_flight.calls{endpoint, role=leader|coalesced} gives the coalescing
+ * ratio, app.single_flight.in_flight the number of open keys.
+ */
+@Service
+public class SingleFlight {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("app.single_flight.in_flight", inFlight, Map::size)
+            .description("Keys with a computation in flight")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Run the loader, or join the computation already running for (endpoint, key).
+     * Exceptions thrown by the leader are rethrown to every waiting caller.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String endpoint, String key, Supplier<T> loader) {
+        String flightKey = endpoint + "|" + key;
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+        
+        if (existing != null) {
+            callCounter(endpoint, "coalesced").increment();
+            return (T) await(existing);
+        }
+        
+        callCounter(endpoint, "leader").increment();
+        try {
+            T result = loader.get();
+            flight.complete(result);
+            return result;
+        } catch (Throwable t) {
+            flight.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+    
+    private Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+    
+    private Counter callCounter(String endpoint, String role) {
+        return Counter.builder("app.single_flight.calls")
+            .description("Calls through the single-flight layer by role")
+            .tag("endpoint", endpoint)
+            .tag("role", role)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,91 @@
+package com.educollab.service;
+
+import com.educollab.filter.JwtAuthenticationFilter;
+import com.educollab.model.Student;
+import com.educollab.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.UUID;
+
+/**
+ * Checks that the authenticated caller may read a student's data.
+ * 
+ * A no-op when JWT verification is disabled (no identity on the request). The student
+ * lookup is served from the second-level cache, so the check adds no network round trip.
+ */
+@Service
+public class StudentAccessGuard {
+    
+    @Autowired
+    private StudentRepository studentRepository;
+    
+    public void checkAccess(String studentIdStr) {
+        String userId = restrictedCallerId();
+        if (userId == null) {
+            return;
+        }
+        
+        UUID studentId;
+        try {
+            studentId = UUID.fromString(studentIdStr);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid studentId format: " + studentIdStr);
+        }
+        
+        Student student = studentRepository.findById(studentId).orElse(null);
+        if (student == null || !isOwner(student, userId)) {
+            System.err.println("⛔ User " + userId + " denied access to student " + studentIdStr);
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access to this student is not allowed");
+        }
+    }
+    
+    /**
+     * A parent may only read their own dashboard.
+     */
+    public void checkParentAccess(String parentId) {
+        String userId = restrictedCallerId();
+        if (userId != null && !userId.equals(parentId)) {
+            System.err.println("⛔ User " + userId + " denied access to parent " + parentId);
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access to this parent is not allowed");
+        }
+    }
+    
+    /**
+     * An institution may only query its own bookings (its user id is the institution id).
+     */
+    public void checkInstitutionAccess(String institutionId) {
+        String userId = restrictedCallerId();
+        if (userId != null && !userId.equals(institutionId)) {
+            System.err.println("⛔ User " + userId + " denied access to institution " + institutionId);
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access to this institution is not allowed");
+        }
+    }
+    
+    /**
+     * Authenticated user id that access rules apply to, or null when there is no identity
+     * on the request or the caller uses the service role (whose key has no subject).
+     */
+    private String restrictedCallerId() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object role = attributes.getAttribute(JwtAuthenticationFilter.ROLE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if ("service_role".equals(role)) {
+            return null;
+        }
+        return (String) attributes.getAttribute(JwtAuthenticationFilter.USER_ID_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+    
+    private boolean isOwner(Student student, String userId) {
+        if (userId.equals(student.getAssociatedParentId())) {
+            return true;
+        }
+        return student.getInstitutionId() != null && userId.equals(student.getInstitutionId().toString());
+    }
+}
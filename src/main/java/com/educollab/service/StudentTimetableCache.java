@@ -0,0 +1,236 @@
+package com.educollab.service;
+
+import com.educollab.model.Course;
+import com.educollab.model.Enrollment;
+import com.educollab.model.Schedule;
+import com.educollab.repository.CourseRepository;
+import com.educollab.repository.EnrollmentRepository;
+import com.educollab.repository.ScheduleRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Weekly occupancy of each student as a bitmap of 5-minute slots (7 days x 288 slots = 32 longs),
+ * one mask per enrolled weekly schedule plus the OR of all of them.
+ *
+ * A clash check builds the candidate's mask, ANDs it with the combined mask (almost always
+ * zero, so done) and only then walks the per-schedule masks, comparing date ranges and exact
+ * minutes for the hits. No occurrence is expanded.
+ *
+ * Timetables are cached per student and dropped after an enrollment change commits; the TTL
+ * bounds staleness for rows changed directly in Supabase. Daily and monthly schedules are not
+ * represented (see WeeklySlot).
+ */
+@Service
+public class StudentTimetableCache {
+    
+    static final int SLOT_MINUTES = 5;
+    static final int SLOTS_PER_DAY = WeeklySlot.MINUTES_PER_DAY / SLOT_MINUTES;
+    static final int WORDS = (7 * SLOTS_PER_DAY + 63) / 64;
+    
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+    
+    @Autowired
+    private CourseRepository courseRepository;
+    
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+    
+    @Value("${app.timetable.cache-size:10000}")
+    private long cacheSize;
+    
+    @Value("${app.timetable.ttl-ms:600000}")
+    private long ttlMs;
+    
+    private Cache<UUID, Timetable> timetables;
+    
+    @PostConstruct
+    void init() {
+        timetables = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(Duration.ofMillis(ttlMs))
+            .build();
+    }
+    
+    /**
+     * Courses the student is enrolled in whose weekly slots overlap any of the candidates.
+     * Must be called inside a transaction (loads the timetable on a cache miss).
+     */
+    public List<UUID> findClashes(UUID studentId, List<WeeklySlot> candidates) {
+        long started = System.nanoTime();
+        Timetable timetable = timetables.get(studentId, this::load);
+        
+        Set<UUID> clashing = new LinkedHashSet<>();
+        for (WeeklySlot candidate : candidates) {
+            long[] mask = maskOf(candidate);
+            if (!intersects(mask, timetable.combined)) {
+                continue;
+            }
+            for (Entry entry : timetable.entries) {
+                if (intersects(mask, entry.mask) && entry.slot.clashesWith(candidate)) {
+                    clashing.add(entry.slot.courseId());
+                }
+            }
+        }
+        
+        System.out.println("✅ Timetable clash check for student " + studentId + ": " + clashing.size() +
+                          " clashing course(s) in " + (System.nanoTime() - started) / 1000 + " µs");
+        return new ArrayList<>(clashing);
+    }
+    
+    /**
+     * The student's cached timetable, loaded on a miss. Load on the request thread (it needs
+     * the transaction); the returned timetable can then be read from any thread.
+     */
+    Timetable timetable(UUID studentId) {
+        return timetables.get(studentId, this::load);
+    }
+    
+    /**
+     * Drop the cached timetable once the current transaction commits.
+     */
+    public void invalidateAfterCommit(UUID studentId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    timetables.invalidate(studentId);
+                }
+            });
+        } else {
+            timetables.invalidate(studentId);
+        }
+    }
+    
+    private Timetable load(UUID studentId) {
+        List<Enrollment> enrollments = enrollmentRepository.findByStudentId(studentId);
+        Map<UUID, LocalDate> lastDateByCourse = new HashMap<>();
+        Set<UUID> courseIds = new HashSet<>();
+        for (Enrollment enrollment : enrollments) {
+            String status = enrollment.getStatus() != null ? enrollment.getStatus() : "active";
+            if ("active".equalsIgnoreCase(status)) {
+                courseIds.add(enrollment.getCourseId());
+                lastDateByCourse.remove(enrollment.getCourseId());
+            } else if (enrollment.getDeactivatedAt() != null && !courseIds.contains(enrollment.getCourseId())) {
+                // Inactive enrollments still occupy the week until they were deactivated
+                LocalDate deactivated = enrollment.getDeactivatedAt().toLocalDate();
+                if (!deactivated.isBefore(LocalDate.now())) {
+                    courseIds.add(enrollment.getCourseId());
+                    lastDateByCourse.put(enrollment.getCourseId(), deactivated);
+                }
+            }
+        }
+        
+        Timetable timetable = new Timetable();
+        if (courseIds.isEmpty()) {
+            return timetable;
+        }
+        
+        Map<UUID, Course> courses = new HashMap<>();
+        for (Course course : courseRepository.findAllById(courseIds)) {
+            courses.put(course.getId(), course);
+        }
+        List<Schedule> schedules = scheduleRepository.findByCourseIdIn(courseIds);
+        Map<UUID, Integer> schedulesPerCourse = new HashMap<>();
+        for (Schedule schedule : schedules) {
+            schedulesPerCourse.merge(schedule.getCourseId(), 1, Integer::sum);
+        }
+        
+        for (Schedule schedule : schedules) {
+            WeeklySlot slot = WeeklySlot.of(schedule, courses.get(schedule.getCourseId()), schedulesPerCourse.get(schedule.getCourseId()));
+            if (slot == null) {
+                continue;
+            }
+            LocalDate lastDate = lastDateByCourse.get(schedule.getCourseId());
+            if (lastDate != null && (slot.toDate() == null || lastDate.isBefore(slot.toDate()))) {
+                slot = new WeeklySlot(slot.scheduleId(), slot.courseId(), slot.day(), slot.startMinute(),
+                                      slot.endMinute(), slot.fromDate(), lastDate);
+            }
+            if (slot.toDate() != null && slot.toDate().isBefore(LocalDate.now())) {
+                continue;
+            }
+            long[] mask = maskOf(slot);
+            timetable.entries.add(new Entry(slot, mask, daySlots(mask, slot.day())));
+            for (int i = 0; i < WORDS; i++) {
+                timetable.combined[i] |= mask[i];
+            }
+        }
+        System.out.println("🗓️ Timetable loaded for student " + studentId + ": " + timetable.entries.size() + " weekly slot(s)");
+        return timetable;
+    }
+    
+    /**
+     * Bits [start, end) of the week, rounded outwards to 5-minute slots.
+     */
+    static long[] maskOf(WeeklySlot slot) {
+        long[] mask = new long[WORDS];
+        setRange(mask, slot.day(), slot.startMinute(), slot.endMinute());
+        return mask;
+    }
+    
+    static void setRange(long[] mask, DayOfWeek day, int startMinute, int endMinute) {
+        int dayOffset = (day.getValue() - 1) * SLOTS_PER_DAY;
+        int from = dayOffset + startMinute / SLOT_MINUTES;
+        int to = dayOffset + (endMinute + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        for (int bit = from; bit < to; bit++) {
+            mask[bit >>> 6] |= 1L << (bit & 63);
+        }
+    }
+    
+    /**
+     * The 288 slots of one weekday cut out of a week mask.
+     */
+    static BitSet daySlots(long[] weekMask, DayOfWeek day) {
+        int dayOffset = (day.getValue() - 1) * SLOTS_PER_DAY;
+        return BitSet.valueOf(weekMask).get(dayOffset, dayOffset + SLOTS_PER_DAY);
+    }
+    
+    /**
+     * OR the slot's day bits into busy[i] for every date from + i the slot runs on.
+     */
+    static void markBusy(WeeklySlot slot, BitSet daySlots, LocalDate from, BitSet[] busy) {
+        LocalDate date = WeeklySlot.firstOnOrAfter(from, slot.day());
+        for (int i = (int) (date.toEpochDay() - from.toEpochDay()); i < busy.length; i += 7, date = date.plusWeeks(1)) {
+            if (slot.runsOn(date)) {
+                busy[i].or(daySlots);
+            }
+        }
+    }
+    
+    static boolean intersects(long[] a, long[] b) {
+        for (int i = 0; i < WORDS; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private record Entry(WeeklySlot slot, long[] mask, BitSet daySlots) {}
+    
+    static class Timetable {
+        private final List<Entry> entries = new ArrayList<>();
+        private final long[] combined = new long[WORDS];
+        
+        /**
+         * Mark this student's busy slots for the dates from, from + 1, ... (one BitSet per day).
+         */
+        void markBusy(LocalDate from, BitSet[] busy) {
+            for (Entry entry : entries) {
+                StudentTimetableCache.markBusy(entry.slot, entry.daySlots, from, busy);
+            }
+        }
+    }
+}
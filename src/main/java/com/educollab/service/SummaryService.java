@@ -1,5 +1,9 @@
 package com.educollab.service;
 
+import com.educollab.dto.ClassEvent;
+import com.educollab.dto.ClassScheduleResponse;
+import com.educollab.dto.CourseSummary;
+import com.educollab.dto.StudentSummaryResponse;
 import com.educollab.model.Course;
 import com.educollab.model.Enrollment;
 import com.educollab.model.PaymentEvent;
@@ -15,7 +19,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -30,7 +33,7 @@ import java.util.UUID;
 @Service
 public class SummaryService {
     
-    private static final LocalDate DEFAULT_START_DATE = LocalDate.of(1970, 1, 1);
+    static final LocalDate DEFAULT_START_DATE = LocalDate.of(1970, 1, 1);
     
     @Autowired
     private ClassScheduleService classScheduleService;
@@ -48,14 +51,11 @@ public class SummaryService {
     private PaymentEventRepository paymentEventRepository;
     
     @Transactional(readOnly = true)
-    public Map<String, Object> getStudentSummary(String studentIdStr) {
+    public StudentSummaryResponse getStudentSummary(String studentIdStr) {
         try {
             UUID studentId = UUID.fromString(studentIdStr);
             LocalDate today = LocalDate.now();
-            LocalDate endDate = today.minusDays(1);
-            if (endDate.isBefore(DEFAULT_START_DATE)) {
-                endDate = DEFAULT_START_DATE;
-            }
+            LocalDate endDate = historyEndDate();
             
             // Fetch enrollments to determine relevant courses
             List<Enrollment> enrollments = enrollmentRepository.findByStudentId(studentId);
@@ -74,23 +74,9 @@ public class SummaryService {
             }
             
             List<Course> courses = courseRepository.findAllById(courseIds);
-            Map<UUID, Course> courseMap = new HashMap<>();
-            Map<String, UUID> courseNameLookup = new HashMap<>();
-            for (Course course : courses) {
-                courseMap.put(course.getId(), course);
-                if (course.getName() != null) {
-                    courseNameLookup.put(course.getName().toLowerCase(Locale.ROOT), course.getId());
-                }
-            }
             
             // Fetch schedules for planned calculation
             List<Schedule> schedules = scheduleRepository.findByCourseIdIn(courseIds);
-            Map<UUID, List<Schedule>> schedulesByCourse = new HashMap<>();
-            for (Schedule schedule : schedules) {
-                schedulesByCourse
-                    .computeIfAbsent(schedule.getCourseId(), key -> new ArrayList<>())
-                    .add(schedule);
-            }
             
             // Fetch paid payment events before today
             List<PaymentEvent> paidEvents = paymentEventRepository.findByStudentIdAndStatusAndDueDateBefore(
@@ -98,53 +84,80 @@ public class SummaryService {
                 "paid",
                 today
             );
-            Map<UUID, BigDecimal> totalPaidByCourse = aggregatePaymentsByCourse(paidEvents, courseNameLookup);
             
             // Fetch historical schedule events and aggregate minutes taken
-            Map<String, Object> scheduleResponse = classScheduleService.getClassSchedules(
+            ClassScheduleResponse scheduleResponse = classScheduleService.getClassSchedules(
                 studentIdStr,
                 DEFAULT_START_DATE,
                 endDate,
                 null
             );
-            Map<UUID, Long> minutesTakenByCourse = aggregateMinutesByCourse(scheduleResponse);
             
-            // Build summary per course
-            List<Map<String, Object>> courseSummaries = new ArrayList<>();
-            for (Course course : courses) {
-                UUID courseId = course.getId();
-                
-                long minutesTaken = minutesTakenByCourse.getOrDefault(courseId, 0L);
-                long plannedMinutes = calculatePlannedMinutes(course, schedulesByCourse.getOrDefault(courseId, Collections.emptyList()));
-                long pendingMinutes = Math.max(plannedMinutes - minutesTaken, 0L);
-                
-                Map<String, Object> courseSummary = new HashMap<>();
-                courseSummary.put("courseId", courseId.toString());
-                courseSummary.put("courseName", course.getName());
-                courseSummary.put("totalPaidAmount", totalPaidByCourse.getOrDefault(courseId, BigDecimal.ZERO));
-                courseSummary.put("hoursTaken", minutesToHours(minutesTaken));
-                courseSummary.put("pendingHours", minutesToHours(pendingMinutes));
-                
-                courseSummaries.add(courseSummary);
+            return new StudentSummaryResponse(
+                studentIdStr,
+                today,
+                buildCourseSummaries(courses, schedules, paidEvents, scheduleResponse)
+            );
+        } catch (IllegalArgumentException ex) {
+            throw new RuntimeException("Invalid studentId format: " + studentIdStr);
+        }
+    }
+    
+    /**
+     * Last day whose classes count as taken in a summary computed today.
+     */
+    static LocalDate historyEndDate() {
+        LocalDate endDate = LocalDate.now().minusDays(1);
+        return endDate.isBefore(DEFAULT_START_DATE) ? DEFAULT_START_DATE : endDate;
+    }
+    
+    /**
+     * Per-course totals from already-loaded rows; used directly by the parent dashboard.
+     */
+    List<CourseSummary> buildCourseSummaries(List<Course> courses,
+                                             List<Schedule> schedules,
+                                             List<PaymentEvent> paidEvents,
+                                             ClassScheduleResponse scheduleResponse) {
+        Map<String, UUID> courseNameLookup = new HashMap<>();
+        for (Course course : courses) {
+            if (course.getName() != null) {
+                courseNameLookup.put(course.getName().toLowerCase(Locale.ROOT), course.getId());
             }
+        }
+        
+        Map<UUID, List<Schedule>> schedulesByCourse = new HashMap<>();
+        for (Schedule schedule : schedules) {
+            schedulesByCourse
+                .computeIfAbsent(schedule.getCourseId(), key -> new ArrayList<>())
+                .add(schedule);
+        }
+        
+        Map<UUID, BigDecimal> totalPaidByCourse = aggregatePaymentsByCourse(paidEvents, courseNameLookup);
+        Map<UUID, Long> minutesTakenByCourse = aggregateMinutesByCourse(scheduleResponse);
+        
+        // Build summary per course
+        List<CourseSummary> courseSummaries = new ArrayList<>();
+        for (Course course : courses) {
+            UUID courseId = course.getId();
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("studentId", studentIdStr);
-            response.put("summaryDate", today.toString());
-            response.put("courses", courseSummaries);
+            long minutesTaken = minutesTakenByCourse.getOrDefault(courseId, 0L);
+            long plannedMinutes = calculatePlannedMinutes(course, schedulesByCourse.getOrDefault(courseId, Collections.emptyList()));
+            long pendingMinutes = Math.max(plannedMinutes - minutesTaken, 0L);
             
-            return response;
-        } catch (IllegalArgumentException ex) {
-            throw new RuntimeException("Invalid studentId format: " + studentIdStr);
+            courseSummaries.add(new CourseSummary(
+                courseId,
+                course.getName(),
+                totalPaidByCourse.getOrDefault(courseId, BigDecimal.ZERO),
+                minutesToHours(minutesTaken),
+                minutesToHours(pendingMinutes)
+            ));
         }
+        
+        return courseSummaries;
     }
     
-    private Map<String, Object> buildEmptySummary(String studentId) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("studentId", studentId);
-        response.put("summaryDate", LocalDate.now().toString());
-        response.put("courses", Collections.emptyList());
-        return response;
+    private StudentSummaryResponse buildEmptySummary(String studentId) {
+        return new StudentSummaryResponse(studentId, LocalDate.now(), Collections.emptyList());
     }
     
     private Map<UUID, BigDecimal> aggregatePaymentsByCourse(List<PaymentEvent> paidEvents, Map<String, UUID> courseNameLookup) {
@@ -166,47 +179,21 @@ public class SummaryService {
         return amount != null ? amount : BigDecimal.ZERO;
     }
     
-    private Map<UUID, Long> aggregateMinutesByCourse(Map<String, Object> scheduleResponse) {
+    private Map<UUID, Long> aggregateMinutesByCourse(ClassScheduleResponse scheduleResponse) {
         Map<UUID, Long> minutesByCourse = new HashMap<>();
-        if (scheduleResponse == null) {
-            return minutesByCourse;
-        }
-        Object eventsObj = scheduleResponse.get("events");
-        if (!(eventsObj instanceof List)) {
+        if (scheduleResponse == null || scheduleResponse.events() == null) {
             return minutesByCourse;
         }
         
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> events = (List<Map<String, Object>>) eventsObj;
-        for (Map<String, Object> event : events) {
-            String courseIdStr = (String) event.get("courseId");
-            Object durationObj = event.get("durationMinutes");
-            String startTimeStr = (String) event.get("startTime");
-            
-            if (courseIdStr == null || durationObj == null || startTimeStr == null) {
+        LocalDate today = LocalDate.now();
+        for (ClassEvent event : scheduleResponse.events()) {
+            if (event.courseId() == null || event.startTime() == null) {
                 continue;
             }
-            
-            OffsetDateTime startTime;
-            try {
-                startTime = OffsetDateTime.parse(startTimeStr);
-            } catch (Exception ex) {
-                continue;
-            }
-            
-            if (!startTime.toLocalDate().isBefore(LocalDate.now())) {
+            if (!event.startTime().toLocalDate().isBefore(today)) {
                 continue;
             }
-            
-            UUID courseId;
-            try {
-                courseId = UUID.fromString(courseIdStr);
-            } catch (IllegalArgumentException ex) {
-                continue;
-            }
-            
-            long durationMinutes = ((Number) durationObj).longValue();
-            minutesByCourse.merge(courseId, durationMinutes, Long::sum);
+            minutesByCourse.merge(event.courseId(), (long) event.durationMinutes(), Long::sum);
         }
         return minutesByCourse;
     }
@@ -0,0 +1,344 @@
+package com.educollab.service;
+
+import com.educollab.dto.ClassScheduleResponse;
+import com.educollab.dto.PaymentEventsResponse;
+import com.educollab.dto.StudentSummaryResponse;
+import com.educollab.model.Course;
+import com.educollab.model.Enrollment;
+import com.educollab.model.PaymentEvent;
+import com.educollab.model.PaymentSchedule;
+import com.educollab.model.Schedule;
+import com.educollab.model.ScheduleException;
+import com.educollab.repository.CourseRepository;
+import com.educollab.repository.ScheduleRepository;
+import com.educollab.repository.StudentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Warm-up phase between context refresh and readiness.
+ *
+ * Spring Boot only moves readiness to ACCEPTING_TRAFFIC after all ApplicationRunners have
+ * returned, so while this runs /health answers 503 and the platform keeps routing to the
+ * previous instance. It
+ *  1. opens every pool connection (Hikari only keeps minimumIdle=1 ready),
+ *  2. runs a few real queries so Hibernate query plans and the course/schedule/student
+ *     second-level cache regions are loaded,
+ *  3. replays a synthetic student (weekly, RRULE and rescheduled classes, monthly and
+ *     bi-weekly billing) through the schedule, payment and summary code paths plus JSON
+ *     serialisation in batches, until the batch latency stops improving.
+ *
+ * Step 3 never touches the database. Database failures are logged and do not block startup.
+ */
+@Service
+public class WarmupService implements ApplicationRunner {
+    
+    @Autowired
+    private ClassScheduleService classScheduleService;
+    
+    @Autowired
+    private PaymentQueryService paymentQueryService;
+    
+    @Autowired
+    private SummaryService summaryService;
+    
+    @Autowired
+    private CourseRepository courseRepository;
+    
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+    
+    @Autowired
+    private StudentRepository studentRepository;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // Checked at runtime rather than with @ConditionalOnProperty so AOT builds can still turn it off
+    @Value("${app.warmup.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.warmup.batch-size:20}")
+    private int batchSize;
+    
+    @Value("${app.warmup.max-batches:100}")
+    private int maxBatches;
+    
+    @Value("${app.warmup.window-batches:5}")
+    private int windowBatches;
+    
+    @Value("${app.warmup.stable-windows:2}")
+    private int stableWindows;
+    
+    @Value("${app.warmup.tolerance:0.10}")
+    private double tolerance;
+    
+    @Value("${app.warmup.max-duration-ms:30000}")
+    private long maxDurationMs;
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            System.out.println("🔥 Warm-up disabled (app.warmup.enabled=false)");
+            return;
+        }
+        
+        long started = System.currentTimeMillis();
+        System.out.println("========================================");
+        System.out.println("🔥 Warm-up started, readiness stays REFUSING_TRAFFIC until it finishes");
+        System.out.println("========================================");
+        
+        warmPool();
+        warmHibernate();
+        warmEngine();
+        
+        System.out.println("========================================");
+        System.out.println("✅ Warm-up finished in " + (System.currentTimeMillis() - started) + " ms");
+        System.out.println("========================================");
+    }
+    
+    /**
+     * Hold every pool connection at once so Hikari opens all of them now, not on the first burst.
+     */
+    private void warmPool() {
+        int poolSize = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 1;
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+            }
+            System.out.println("✅ Warm-up: " + connections.size() + " pool connection(s) open");
+        } catch (Exception e) {
+            System.err.println("⚠️ Warm-up: could not open pool connections: " + e.getMessage());
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (Exception ignored) {
+                }
+            }
+        }
+    }
+    
+    private void warmHibernate() {
+        try {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnly.executeWithoutResult(status -> {
+                List<Course> courses = courseRepository.findAll(PageRequest.of(0, 200)).getContent();
+                Set<UUID> courseIds = new HashSet<>();
+                for (Course course : courses) {
+                    courseIds.add(course.getId());
+                }
+                int schedules = courseIds.isEmpty() ? 0 : scheduleRepository.findByCourseIdIn(courseIds).size();
+                int students = studentRepository.findAll(PageRequest.of(0, 200)).getNumberOfElements();
+                System.out.println("✅ Warm-up: loaded " + courses.size() + " course(s), " + schedules +
+                                  " schedule(s), " + students + " student(s) into the second-level cache");
+            });
+        } catch (Exception e) {
+            System.err.println("⚠️ Warm-up: Hibernate warm-up failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Run batches of the synthetic workload until latency stops improving: the mean of a window
+     * of windowBatches batches is compared with the previous window, and stableWindows windows
+     * in a row improving by less than the tolerance count as stable. Single batches are too
+     * noisy for this while C2 is still compiling. The time limit covers this step only, so a
+     * slow database does not cut the JIT warm-up short.
+     */
+    private void warmEngine() {
+        long started = System.currentTimeMillis();
+        SyntheticStudent student = new SyntheticStudent();
+        double windowTotalMs = 0;
+        double previousWindowMs = -1;
+        int stableInARow = 0;
+        
+        for (int batch = 1; batch <= maxBatches; batch++) {
+            long batchStart = System.nanoTime();
+            for (int i = 0; i < batchSize; i++) {
+                runWorkload(student);
+            }
+            windowTotalMs += (System.nanoTime() - batchStart) / 1_000_000.0 / batchSize;
+            
+            if (batch % windowBatches == 0) {
+                double windowMs = windowTotalMs / windowBatches;
+                windowTotalMs = 0;
+                if (previousWindowMs > 0 && windowMs >= previousWindowMs * (1 - tolerance)) {
+                    stableInARow++;
+                } else {
+                    stableInARow = 0;
+                }
+                System.out.println(String.format("🔥 Warm-up batches %d-%d: %.2f ms/iteration (stable %d/%d)",
+                    batch - windowBatches + 1, batch, windowMs, stableInARow, stableWindows));
+                previousWindowMs = windowMs;
+                
+                if (stableInARow >= stableWindows) {
+                    System.out.println("✅ Warm-up: latency stable after " + batch + " batch(es)");
+                    return;
+                }
+            }
+            if (System.currentTimeMillis() - started > maxDurationMs) {
+                System.out.println("⚠️ Warm-up: stopped after " + maxDurationMs + " ms without stable latency");
+                return;
+            }
+        }
+        System.out.println("⚠️ Warm-up: stopped after " + maxBatches + " batch(es) without stable latency");
+    }
+    
+    /**
+     * One pass over the code a real schedules + payments + summary request runs after its queries.
+     */
+    private void runWorkload(SyntheticStudent student) {
+        LocalDate today = LocalDate.now();
+        LocalDate endDate = today.plusMonths(3);
+        
+        ClassScheduleService.ExpansionPlan plan = classScheduleService.buildExpansionPlan(
+            student.enrollments, student.courses, student.schedules, student.exceptions, Collections.emptyList()
+        );
+        ClassScheduleResponse schedules = classScheduleService.expandPlan(plan, today, endDate, null);
+        
+        List<PaymentEvent> generated = new ArrayList<>();
+        for (PaymentSchedule paymentSchedule : student.paymentSchedules) {
+            for (LocalDate dueDate : paymentQueryService.calculateDueDatesFromRRULE(
+                    paymentSchedule.getBillingRule(), paymentSchedule.getStartDate(), today, endDate)) {
+                PaymentEvent event = new PaymentEvent(student.studentId, paymentSchedule.getId(),
+                    paymentSchedule.getItem(), paymentSchedule.getAmount(), dueDate);
+                event.setStatus("pending");
+                generated.add(event);
+            }
+        }
+        PaymentEventsResponse payments = paymentQueryService.buildPaymentResponse(
+            paymentQueryService.formatPaymentSchedules(student.paymentSchedules),
+            paymentQueryService.formatPaymentEvents(generated)
+        );
+        
+        ClassScheduleResponse history = classScheduleService.expandPlan(
+            plan, SummaryService.DEFAULT_START_DATE, SummaryService.historyEndDate(), null
+        );
+        StudentSummaryResponse summary = new StudentSummaryResponse(
+            student.studentId.toString(),
+            today,
+            summaryService.buildCourseSummaries(plan.courses, plan.schedules, student.paidEvents, history)
+        );
+        
+        try {
+            objectMapper.writeValueAsBytes(schedules);
+            objectMapper.writeValueAsBytes(payments);
+            objectMapper.writeValueAsBytes(summary);
+        } catch (Exception e) {
+            throw new RuntimeException("Warm-up serialisation failed: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * In-memory student covering each recurrence branch: plain weekly, RRULE weekly and monthly,
+     * a cancelled and a moved occurrence, an inactive enrollment, and two billing rules.
+     */
+    private static class SyntheticStudent {
+        final UUID studentId = UUID.randomUUID();
+        final List<Course> courses = new ArrayList<>();
+        final List<Enrollment> enrollments = new ArrayList<>();
+        final List<Schedule> schedules = new ArrayList<>();
+        final List<ScheduleException> exceptions = new ArrayList<>();
+        final List<PaymentSchedule> paymentSchedules = new ArrayList<>();
+        final List<PaymentEvent> paidEvents = new ArrayList<>();
+        
+        SyntheticStudent() {
+            LocalDate start = LocalDate.now().minusMonths(6);
+            
+            Course piano = course("Piano", 48);
+            Course swimming = course("Swimming", 40);
+            Course chess = course("Chess", 12);
+            
+            Schedule pianoWeekly = schedule(piano, "MONDAY", LocalTime.of(16, 0), start, null);
+            schedule(piano, "THURSDAY", LocalTime.of(17, 30), start, "FREQ=WEEKLY;BYDAY=TH");
+            schedule(swimming, "SATURDAY", LocalTime.of(9, 0), start, "FREQ=WEEKLY;BYDAY=SA");
+            schedule(chess, null, LocalTime.of(15, 0), start, "FREQ=MONTHLY;BYMONTHDAY=10");
+            
+            ScheduleException cancelled = new ScheduleException(pianoWeekly.getId(), nextMonday(), pianoWeekly.getStartTime());
+            cancelled.setIsCancelled(true);
+            exceptions.add(cancelled);
+            ScheduleException moved = new ScheduleException(pianoWeekly.getId(), nextMonday().plusWeeks(1), pianoWeekly.getStartTime());
+            moved.setIsCancelled(false);
+            moved.setNewDate(nextMonday().plusWeeks(1).plusDays(1));
+            exceptions.add(moved);
+            
+            Enrollment inactive = enrollments.get(enrollments.size() - 1);
+            inactive.setStatus("inactive");
+            inactive.setDeactivatedAt(LocalDateTime.now().plusMonths(1));
+            
+            PaymentSchedule monthly = paymentSchedule("Piano", "FREQ=MONTHLY;BYMONTHDAY=5", "120.00", start);
+            paymentSchedule("Swimming", "FREQ=WEEKLY;INTERVAL=2;BYDAY=TU", "35.00", start);
+            
+            for (int i = 1; i <= 6; i++) {
+                PaymentEvent paid = new PaymentEvent(studentId, monthly.getId(), "Piano", monthly.getAmount(), start.plusMonths(i));
+                paid.setStatus("paid");
+                paidEvents.add(paid);
+            }
+        }
+        
+        private Course course(String name, int totalSessions) {
+            Course course = new Course(name, "Warm-up Teacher", totalSessions);
+            course.setId(UUID.randomUUID());
+            course.setLocation("Room 1");
+            courses.add(course);
+            enrollments.add(new Enrollment(course.getId(), studentId));
+            return course;
+        }
+        
+        private Schedule schedule(Course course, String dayOfWeek, LocalTime startTime, LocalDate startDate, String recurrenceRule) {
+            Schedule schedule = new Schedule(course.getId(), dayOfWeek, startTime, startDate, 60L);
+            schedule.setId(UUID.randomUUID());
+            if (recurrenceRule != null) {
+                schedule.setRecurrenceRule(recurrenceRule);
+            }
+            schedules.add(schedule);
+            return schedule;
+        }
+        
+        private PaymentSchedule paymentSchedule(String item, String billingRule, String amount, LocalDate startDate) {
+            PaymentSchedule paymentSchedule = new PaymentSchedule(studentId, billingRule, new BigDecimal(amount), startDate);
+            paymentSchedule.setId(UUID.randomUUID());
+            paymentSchedule.setItem(item);
+            paymentSchedules.add(paymentSchedule);
+            return paymentSchedule;
+        }
+        
+        private static LocalDate nextMonday() {
+            LocalDate date = LocalDate.now().plusDays(1);
+            while (date.getDayOfWeek() != DayOfWeek.MONDAY) {
+                date = date.plusDays(1);
+            }
+            return date;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.educollab.service;
+
+import com.educollab.model.Course;
+import com.educollab.model.Schedule;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+/**
+ * A weekly recurring time range (day of week, minutes since midnight) with the dates it runs
+ * between. toDate is null for open-ended schedules.
+ *
+ * Conflict checks compare slots directly instead of expanding occurrences: two slots clash
+ * when they share a weekday, their time ranges overlap and their date ranges overlap.
+ */
+record WeeklySlot(UUID scheduleId,
+                  UUID courseId,
+                  DayOfWeek day,
+                  int startMinute,
+                  int endMinute,
+                  LocalDate fromDate,
+                  LocalDate toDate) {
+    
+    static final int MINUTES_PER_DAY = 24 * 60;
+    
+    /**
+     * Slot for a stored schedule, or null when it does not repeat weekly on a single day
+     * (daily and monthly rules). The last date follows from the course's sessions divided
+     * among its schedules, as in the expansion engine.
+     */
+    static WeeklySlot of(Schedule schedule, Course course, int schedulesForCourse) {
+        if (schedule.getStartTime() == null || schedule.getStartDate() == null || schedule.getDurationMinutes() == null) {
+            return null;
+        }
+        DayOfWeek day = weeklyDay(schedule);
+        if (day == null) {
+            return null;
+        }
+        
+        LocalDate fromDate = schedule.getStartDate();
+        LocalDate toDate = null;
+        if (course != null && course.getTotalSessions() != null && schedulesForCourse > 0) {
+            int sessions = Math.max(course.getTotalSessions() / schedulesForCourse, 1);
+            toDate = firstOnOrAfter(fromDate, day).plusWeeks(sessions - 1);
+        }
+        return of(schedule.getId(), schedule.getCourseId(), day, schedule.getStartTime(),
+                  schedule.getDurationMinutes(), fromDate, toDate);
+    }
+    
+    static WeeklySlot of(UUID scheduleId,
+                         UUID courseId,
+                         DayOfWeek day,
+                         LocalTime startTime,
+                         long durationMinutes,
+                         LocalDate fromDate,
+                         LocalDate toDate) {
+        int startMinute = startTime.getHour() * 60 + startTime.getMinute();
+        // Classes running past midnight are cut at the end of the day
+        int endMinute = (int) Math.min(startMinute + Math.max(durationMinutes, 1), MINUTES_PER_DAY);
+        return new WeeklySlot(scheduleId, courseId, day, startMinute, endMinute, fromDate, toDate);
+    }
+    
+    /**
+     * Weekday of a weekly schedule: "weekly" (or no rule) with dayOfWeek, or FREQ=WEEKLY;BYDAY=XX.
+     */
+    private static DayOfWeek weeklyDay(Schedule schedule) {
+        String rule = schedule.getRecurrenceRule();
+        if (rule == null || rule.isEmpty() || "weekly".equalsIgnoreCase(rule)) {
+            DayOfWeek day = ClassScheduleService.parseDayOfWeek(schedule.getDayOfWeek());
+            return day != null ? day : schedule.getStartDate().getDayOfWeek();
+        }
+        String upper = rule.toUpperCase();
+        if (!upper.startsWith("FREQ=WEEKLY")) {
+            return null;
+        }
+        for (String part : upper.split(";")) {
+            if (part.startsWith("INTERVAL=") && !"INTERVAL=1".equals(part)) {
+                return null;
+            }
+        }
+        for (String part : upper.split(";")) {
+            if (part.startsWith("BYDAY=")) {
+                return ClassScheduleService.parseDayOfWeekString(part.substring(6));
+            }
+        }
+        DayOfWeek day = ClassScheduleService.parseDayOfWeek(schedule.getDayOfWeek());
+        return day != null ? day : schedule.getStartDate().getDayOfWeek();
+    }
+    
+    static LocalDate firstOnOrAfter(LocalDate date, DayOfWeek day) {
+        int daysToAdd = (day.getValue() - date.getDayOfWeek().getValue() + 7) % 7;
+        return date.plusDays(daysToAdd);
+    }
+    
+    /**
+     * Start as minutes since Monday 00:00, the key of the interval indexes.
+     */
+    int weekStart() {
+        return (day.getValue() - 1) * MINUTES_PER_DAY + startMinute;
+    }
+    
+    int weekEnd() {
+        return (day.getValue() - 1) * MINUTES_PER_DAY + endMinute;
+    }
+    
+    LocalTime startTime() {
+        return LocalTime.of(startMinute / 60, startMinute % 60);
+    }
+    
+    LocalTime endTime() {
+        return endMinute >= MINUTES_PER_DAY ? LocalTime.MAX : LocalTime.of(endMinute / 60, endMinute % 60);
+    }
+    
+    boolean overlapsDates(LocalDate otherFrom, LocalDate otherTo) {
+        boolean startsBeforeOtherEnds = otherTo == null || fromDate == null || !fromDate.isAfter(otherTo);
+        boolean endsAfterOtherStarts = toDate == null || otherFrom == null || !toDate.isBefore(otherFrom);
+        return startsBeforeOtherEnds && endsAfterOtherStarts;
+    }
+    
+    boolean clashesWith(WeeklySlot other) {
+        return day == other.day
+            && startMinute < other.endMinute
+            && other.startMinute < endMinute
+            && overlapsDates(other.fromDate, other.toDate);
+    }
+    
+    /**
+     * Whether the slot has an occurrence on this date (weekday and date bounds).
+     */
+    boolean runsOn(LocalDate date) {
+        return date.getDayOfWeek() == day
+            && (fromDate == null || !date.isBefore(fromDate))
+            && (toDate == null || !date.isAfter(toDate));
+    }
+}
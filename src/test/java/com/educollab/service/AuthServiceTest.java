@@ -0,0 +1,223 @@
+package com.educollab.service;
+
+import com.educollab.config.SupabaseConfig;
+import com.educollab.dto.LoginRequest;
+import com.educollab.dto.RegisterRequest;
+import com.educollab.model.User;
+import com.educollab.repository.StudentRepository;
+import com.educollab.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Register and login against a WireMock stub of the Supabase Auth endpoints. The repositories
+ * and transaction manager are mocks, so no database is needed.
+ */
+class AuthServiceTest {
+    
+    @RegisterExtension
+    static WireMockExtension supabase = WireMockExtension.newInstance()
+        .options(wireMockConfig().dynamicPort())
+        .build();
+    
+    private static final Scheduler DATABASE_SCHEDULER = Schedulers.newBoundedElastic(2, 100, "db-offload-test");
+    private static final Duration BLOCK_TIMEOUT = Duration.ofSeconds(10);
+    
+    private static final UUID USER_ID = UUID.fromString("7d1f1b1e-5c1a-4a55-9a50-0c3c5a0b2f01");
+    
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final StudentRepository studentRepository = mock(StudentRepository.class);
+    
+    private AuthService authService;
+    
+    @BeforeEach
+    void setUp() {
+        SupabaseConfig supabaseConfig = new SupabaseConfig();
+        ReflectionTestUtils.setField(supabaseConfig, "supabaseUrl", supabase.baseUrl());
+        ReflectionTestUtils.setField(supabaseConfig, "serviceKey", "test-service-key");
+        ReflectionTestUtils.setField(supabaseConfig, "responseTimeoutMs", 2000L);
+        
+        WebClient webClient = WebClient.builder()
+            .baseUrl(supabase.baseUrl())
+            .defaultHeader("apikey", "test-service-key")
+            .defaultHeader("Content-Type", "application/json")
+            .build();
+        
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        
+        authService = new AuthService();
+        ReflectionTestUtils.setField(authService, "supabaseConfig", supabaseConfig);
+        ReflectionTestUtils.setField(authService, "supabaseWebClient", webClient);
+        ReflectionTestUtils.setField(authService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(authService, "studentRepository", studentRepository);
+        ReflectionTestUtils.setField(authService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(authService, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(authService, "databaseScheduler", DATABASE_SCHEDULER);
+        authService.initTransactionTemplates();
+    }
+    
+    @AfterAll
+    static void disposeScheduler() {
+        DATABASE_SCHEDULER.dispose();
+    }
+    
+    @Test
+    void loginReturnsProfileAndSupabaseTokens() {
+        supabase.stubFor(post(urlPathEqualTo("/auth/v1/token"))
+            .withQueryParam("grant_type", equalTo("password"))
+            .willReturn(okJson("{\"access_token\":\"access-1\",\"refresh_token\":\"refresh-1\"," +
+                               "\"token_type\":\"bearer\",\"expires_in\":3600," +
+                               "\"user\":{\"id\":\"" + USER_ID + "\",\"email\":\"parent@example.com\"}}")));
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user("parent")));
+        when(studentRepository.findByAssociatedParentId(USER_ID.toString())).thenReturn(List.of());
+        
+        Map<String, Object> response = authService.login(new LoginRequest("parent@example.com", null, "secret", "parent"))
+            .block(BLOCK_TIMEOUT);
+        
+        assertEquals(true, response.get("success"), () -> String.valueOf(response.get("message")));
+        Map<String, Object> data = asMap(response.get("data"));
+        assertEquals("access-1", data.get("accessToken"));
+        assertEquals("refresh-1", data.get("refreshToken"));
+        assertEquals(3600, data.get("expiresIn"));
+        assertEquals(USER_ID.toString(), asMap(data.get("user")).get("id"));
+        assertEquals(List.of(), data.get("children"));
+        
+        supabase.verify(postRequestedFor(urlPathEqualTo("/auth/v1/token"))
+            .withQueryParam("grant_type", equalTo("password"))
+            .withHeader("apikey", equalTo("test-service-key"))
+            .withRequestBody(equalToJson("{\"email\":\"parent@example.com\",\"password\":\"secret\"}")));
+    }
+    
+    @Test
+    void phoneLoginResolvesEmailBeforeCallingSupabase() {
+        supabase.stubFor(post(urlPathEqualTo("/auth/v1/token"))
+            .willReturn(okJson("{\"access_token\":\"access-2\",\"refresh_token\":\"refresh-2\"," +
+                               "\"user\":{\"id\":\"" + USER_ID + "\"}}")));
+        User teacher = user("teacher");
+        when(userRepository.findByPhone("+15550100")).thenReturn(Optional.of(teacher));
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(teacher));
+        
+        Map<String, Object> response = authService.login(new LoginRequest(null, "+15550100", "secret", null))
+            .block(BLOCK_TIMEOUT);
+        
+        assertEquals(true, response.get("success"), () -> String.valueOf(response.get("message")));
+        supabase.verify(postRequestedFor(urlPathEqualTo("/auth/v1/token"))
+            .withRequestBody(matchingJsonPath("$.email", equalTo(teacher.getEmail()))));
+    }
+    
+    @Test
+    void loginMapsUnconfirmedEmail() {
+        supabase.stubFor(post(urlPathEqualTo("/auth/v1/token"))
+            .willReturn(aResponse().withStatus(400)
+                .withHeader("Content-Type", "application/json")
+                .withBody("{\"error_code\":\"email_not_confirmed\",\"msg\":\"Email not confirmed\"}")));
+        
+        Map<String, Object> response = authService.login(new LoginRequest("new@example.com", null, "secret", null))
+            .block(BLOCK_TIMEOUT);
+        
+        assertEquals(false, response.get("success"));
+        assertTrue(((String) response.get("message")).contains("Email not confirmed"), (String) response.get("message"));
+        verifyNoInteractions(userRepository);
+    }
+    
+    @Test
+    void loginRejectsWrongPassword() {
+        supabase.stubFor(post(urlPathEqualTo("/auth/v1/token"))
+            .willReturn(aResponse().withStatus(400)
+                .withHeader("Content-Type", "application/json")
+                .withBody("{\"error\":\"invalid_grant\",\"error_description\":\"Invalid login credentials\"}")));
+        
+        Map<String, Object> response = authService.login(new LoginRequest("parent@example.com", null, "wrong", null))
+            .block(BLOCK_TIMEOUT);
+        
+        assertEquals(false, response.get("success"));
+        assertTrue(((String) response.get("message")).contains("Invalid login credentials"), (String) response.get("message"));
+    }
+    
+    @Test
+    void loginRejectsRoleMismatch() {
+        supabase.stubFor(post(urlPathEqualTo("/auth/v1/token"))
+            .willReturn(okJson("{\"access_token\":\"access-3\",\"user\":{\"id\":\"" + USER_ID + "\"}}")));
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user("student")));
+        
+        Map<String, Object> response = authService.login(new LoginRequest("parent@example.com", null, "secret", "parent"))
+            .block(BLOCK_TIMEOUT);
+        
+        assertEquals(false, response.get("success"));
+        assertTrue(((String) response.get("message")).contains("Invalid role"), (String) response.get("message"));
+    }
+    
+    @Test
+    void loginFailsFastWhenSupabaseIsSlow() {
+        supabase.stubFor(post(urlPathEqualTo("/auth/v1/token"))
+            .willReturn(okJson("{}").withFixedDelay(6000)));
+        
+        long started = System.nanoTime();
+        Map<String, Object> response = authService.login(new LoginRequest("parent@example.com", null, "secret", null))
+            .block(BLOCK_TIMEOUT);
+        
+        assertEquals(false, response.get("success"));
+        assertTrue(((String) response.get("message")).startsWith("Login failed: Failed to authenticate with Supabase"),
+                   (String) response.get("message"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 5000);
+        verifyNoInteractions(userRepository);
+    }
+    
+    @Test
+    void registerCreatesMissingProfileAndReportsPendingConfirmation() {
+        supabase.stubFor(post(urlEqualTo("/auth/v1/signup"))
+            .willReturn(okJson("{\"id\":\"" + USER_ID + "\",\"email\":\"parent@example.com\"}")));
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.empty());
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        Map<String, Object> response = authService.register(
+                new RegisterRequest("parent@example.com", "secret", "Pat Parent", "parent", "+15550100"))
+            .block(BLOCK_TIMEOUT);
+        
+        assertEquals(true, response.get("success"), () -> String.valueOf(response.get("message")));
+        Map<String, Object> data = asMap(response.get("data"));
+        assertEquals("pending_email_confirmation", data.get("accessToken"));
+        assertEquals(0, data.get("expiresIn"));
+        verify(userRepository).save(any(User.class));
+        
+        supabase.verify(postRequestedFor(urlEqualTo("/auth/v1/signup"))
+            .withRequestBody(matchingJsonPath("$.data.role", equalTo("parent"))));
+    }
+    
+    private static User user(String role) {
+        User user = new User();
+        user.setId(USER_ID);
+        user.setEmail(role + "@example.com");
+        user.setName("Test " + role);
+        user.setRole(role);
+        return user;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+}
@@ -0,0 +1,116 @@
+package com.educollab.service;
+
+import com.educollab.model.Course;
+import com.educollab.model.Enrollment;
+import com.educollab.model.Schedule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequential vs parallel expandPlan for plans of increasing size, to place
+ * app.expansion.parallel-threshold. Each course has two weekly schedules and one daily schedule
+ * expanded over two years; "summary" is the SummaryService shape (two weekly schedules of a
+ * 20-session course, expanded from 1970).
+ *
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.educollab.service.ClassScheduleExpansionBenchmark
+ *
+ * The parallel path uses at least two workers, so on a single core it measures pure overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassScheduleExpansionBenchmark {
+    
+    @Param({"summary", "1", "4", "16", "64"})
+    public String courses;
+    
+    @Param({"sequential", "parallel"})
+    public String path;
+    
+    private ClassScheduleService service;
+    private ClassScheduleService.ExpansionPlan plan;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    
+    @Setup
+    public void setUp() throws Exception {
+        service = new ClassScheduleService();
+        // At least two workers so the parallel path is taken even on a single-core host
+        set("expansionParallelism", "parallel".equals(path) ? Math.max(2, Runtime.getRuntime().availableProcessors()) : 0);
+        set("parallelThreshold", "parallel".equals(path) ? 0L : Long.MAX_VALUE);
+        service.init();
+        
+        List<Enrollment> enrollments = new ArrayList<>();
+        List<Course> courseRows = new ArrayList<>();
+        List<Schedule> schedules = new ArrayList<>();
+        UUID studentId = UUID.randomUUID();
+        Random random = new Random(42);
+        String[] days = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday"};
+        
+        boolean summary = "summary".equals(courses);
+        int courseCount = summary ? 1 : Integer.parseInt(courses);
+        for (int i = 0; i < courseCount; i++) {
+            Course course = new Course();
+            course.setId(UUID.randomUUID());
+            course.setName("Course " + i);
+            course.setTotalSessions(summary ? 20 : 100000);
+            courseRows.add(course);
+            
+            Enrollment enrollment = new Enrollment(course.getId(), studentId);
+            enrollment.setStatus("active");
+            enrollments.add(enrollment);
+            
+            for (int j = 0; j < (summary ? 2 : 3); j++) {
+                Schedule schedule = new Schedule();
+                schedule.setId(UUID.randomUUID());
+                schedule.setCourseId(course.getId());
+                schedule.setDayOfWeek(days[random.nextInt(days.length)]);
+                schedule.setStartTime(LocalTime.of(8 + random.nextInt(10), 0));
+                schedule.setStartDate(LocalDate.of(2025, 1, 6));
+                schedule.setDurationMinutes(60L);
+                schedule.setRecurrenceRule(j == 2 ? "FREQ=DAILY" : null);
+                schedules.add(schedule);
+            }
+        }
+        
+        plan = service.buildExpansionPlan(enrollments, courseRows, schedules, List.of(), List.of());
+        startDate = summary ? LocalDate.of(1970, 1, 1) : LocalDate.of(2025, 1, 1);
+        endDate = LocalDate.of(2026, 12, 31);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+    }
+    
+    @Benchmark
+    public int expandPlan() {
+        return service.expandPlan(plan, startDate, endDate, null).events().size();
+    }
+    
+    private void set(String name, Object value) throws Exception {
+        Field field = ClassScheduleService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(service, value);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        // Accepts JMH options, e.g. -p courses=summary,16
+        new Runner(new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .include(ClassScheduleExpansionBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -37,6 +37,26 @@ set +a
 
 echo "✅ Loaded environment variables from .env"
 
+# Optional fast-start mode: ./start.sh --cds
+# Builds with Spring AOT and an AppCDS archive (mvn -Pcds) and runs the thin jar
+if [ "$1" == "--cds" ]; then
+    echo "🔧 Building application with AOT + CDS archive..."
+    mvn clean package -Pcds -DskipTests
+
+    if [ $? -ne 0 ]; then
+        echo "❌ Build failed. Please check the errors above."
+        exit 1
+    fi
+
+    echo "🎯 Starting application (AOT + CDS) on localhost:8080..."
+    echo "📝 Using profile: local"
+    echo "🌐 API will be available at: http://localhost:8080/api/v1"
+    echo ""
+    cd target/cds
+    exec java -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true \
+        -Dspring.profiles.active=local -jar school-app-backend-cds.jar
+fi
+
 # Build application
 echo "🔧 Building application..."
 mvn clean install -DskipTests
@@ -0,0 +1,47 @@
+#!/bin/bash
+
+# Startup time benchmark: fat jar vs Spring AOT + AppCDS archive
+#
+# Usage:  ./startup_benchmark.sh [runs]
+# Builds with -Pcds (which also produces the normal fat jar), then starts each variant
+# with spring.context.exit=onRefresh so the process exits once the context is ready.
+# JDBC metadata lookup is disabled so no database is needed; the numbers measure
+# classpath scanning, bean creation and Hibernate/Tomcat bootstrap only.
+
+RUNS=${1:-3}
+ARGS="--spring.jpa.properties.hibernate.temp.use_jdbc_metadata_defaults=false"
+
+echo "⏱️  Startup benchmark ($RUNS runs each)"
+echo "========================================"
+
+echo "🔧 Building (mvn -Pcds package)..."
+mvn -q -Pcds clean package -DskipTests > /dev/null
+if [ $? -ne 0 ]; then
+    echo "❌ Build failed"
+    exit 1
+fi
+
+measure() {
+    local label=$1
+    local dir=$2
+    shift 2
+    local total=0
+    for i in $(seq 1 "$RUNS"); do
+        local start=$(date +%s%N)
+        (cd "$dir" && "$@" > /dev/null 2>&1)
+        local end=$(date +%s%N)
+        local ms=$(( (end - start) / 1000000 ))
+        total=$(( total + ms ))
+        echo "  $label run $i: ${ms} ms"
+    done
+    echo "  $label average: $(( total / RUNS )) ms"
+}
+
+measure "fat jar" target \
+    java -Dspring.context.exit=onRefresh -jar school-app-backend-1.0.0.jar $ARGS
+
+measure "AOT + CDS" target/cds \
+    java -Xlog:cds=off -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true \
+         -Dspring.context.exit=onRefresh -jar school-app-backend-cds.jar $ARGS
+
+echo "========================================"
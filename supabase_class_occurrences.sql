@@ -0,0 +1,28 @@
+-- Materialised class occurrences (optional, app.occurrences.enabled) read by /api/v1/class/schedules
+-- Run in Supabase SQL editor before deploying backend changes, then fill it with:
+--   java -jar school-app-backend.jar --occurrences=rebuild
+
+-- One row per occurrence of a schedule, keyed by its original slot, exceptions and closures applied
+CREATE TABLE IF NOT EXISTS public.class_occurrences (
+    schedule_id UUID NOT NULL REFERENCES public.schedules(id) ON DELETE CASCADE,
+    course_id UUID NOT NULL,
+    original_date DATE NOT NULL,
+    original_start_time TIME NOT NULL,
+    starts_at TIMESTAMP NOT NULL,
+    ends_at TIMESTAMP NOT NULL,
+    duration_minutes INTEGER NOT NULL,
+    cancelled BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (schedule_id, original_date, original_start_time)
+);
+
+-- The read path: range scan per enrolled course
+CREATE INDEX IF NOT EXISTS idx_class_occurrences_course_date
+    ON public.class_occurrences(course_id, original_date);
+
+-- Original dates the table currently covers; requests outside it fall back to live expansion
+CREATE TABLE IF NOT EXISTS public.class_occurrence_window (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    window_start DATE NOT NULL,
+    window_end DATE NOT NULL,
+    rebuilt_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
+);
@@ -0,0 +1,21 @@
+-- Institution closure calendar (public holidays, term breaks) applied during schedule expansion
+-- Run in Supabase SQL editor before deploying backend changes
+
+ALTER TABLE public.courses ADD COLUMN IF NOT EXISTS institution_id UUID;
+
+CREATE INDEX IF NOT EXISTS idx_courses_institution_id
+    ON public.courses(institution_id)
+    WHERE institution_id IS NOT NULL;
+
+CREATE TABLE IF NOT EXISTS public.institution_closures (
+    id UUID DEFAULT gen_random_uuid() PRIMARY KEY,
+    institution_id UUID NOT NULL,
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    reason TEXT,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
+    CHECK (end_date >= start_date)
+);
+
+CREATE INDEX IF NOT EXISTS idx_institution_closures_institution_id
+    ON public.institution_closures(institution_id, start_date);
@@ -0,0 +1,5 @@
+-- Keyset index for streamed payment events (student_id, due_date, id)
+-- Run in Supabase SQL editor before deploying backend changes
+
+CREATE INDEX IF NOT EXISTS idx_payment_events_student_due_date
+    ON public.payment_events(student_id, due_date, id);
@@ -0,0 +1,9 @@
+-- Index the moved occurrence of schedule exceptions (ScheduleExceptionRepository.findByNewOccurrence)
+-- Run in Supabase SQL editor before deploying backend changes
+
+CREATE INDEX IF NOT EXISTS idx_schedule_exceptions_new_occurrence
+    ON public.schedule_exceptions(schedule_id, new_date, (COALESCE(new_start_time, original_start_time)))
+    WHERE new_date IS NOT NULL;
+
+-- The upsert in ScheduleService relies on idx_schedule_exceptions_unique_occurrence
+-- (schedule_id, original_date, original_start_time) from supabase_schedule_exceptions.sql
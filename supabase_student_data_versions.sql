@@ -0,0 +1,8 @@
+-- Create student_data_versions table backing the ETags on schedules, payments and summary
+-- Run in Supabase SQL editor before deploying backend changes
+
+CREATE TABLE IF NOT EXISTS public.student_data_versions (
+    student_id UUID PRIMARY KEY REFERENCES public.students(id) ON DELETE CASCADE,
+    version BIGINT NOT NULL DEFAULT 1,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
+);